@@ -6,23 +6,33 @@ package net.bndy.lib;
 
 import java.lang.annotation.Annotation;
 
+import net.bndy.lib.introspect.BeanIntrospection;
+
 /**
  * Utils for Annotation
  */
 public class AnnotationHelper {
 
     /**
-     * Get annotation of public field.
+     * Get annotation of field, from the generated {@link BeanIntrospection} of the class if any,
+     * otherwise from the annotations cached by {@link ClassMetadata}.
      *
      * @param annotationClass   the annotation class annotated by @Retention(RetentionPolicy.RUNTIME)
      * @param source    the source class
      * @param fieldName the public field name
      * @param <T>       the annotation type
      * @param <TSource> the source type
-     * @return          the instance typed {@code T}
+     * @return          the instance typed {@code T}, or {@code null} if the field is absent or not annotated
      */
     public static <T extends Annotation, TSource> T getFieldAnnotation(Class<T> annotationClass, Class<TSource> source, String fieldName) {
-        return ReflectionHelper.getField(fieldName, source).getAnnotation(annotationClass);
+        BeanIntrospection<TSource> introspection = BeanIntrospection.of(source);
+        if (introspection != null) {
+            int index = introspection.indexOf(fieldName);
+            if (index >= 0) {
+                return introspection.getAnnotation(index, annotationClass);
+            }
+        }
+        return ClassMetadata.of(source).getFieldAnnotation(fieldName, annotationClass);
     }
 
     /**
@@ -0,0 +1,408 @@
+package net.bndy.lib;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import net.bndy.lib.introspect.BeanIntrospection;
+
+/**
+ * Maps {@code Map}s, such as the rows of a result set, to instances of a class by setting their
+ * fields by name, e.g.
+ * <pre>
+ *     BeanMapper&lt;User&gt; mapper = BeanMapper.of(User.class);
+ *     for (Map&lt;String, Object&gt; row : rows) {
+ *         users.add(mapper.map(row));
+ *     }
+ * </pre>
+ * The setter plan of a class is built once and cached: each field is resolved to a
+ * {@link FieldAccessor} and a conversion precomputed from its type, so mapping a row costs one
+ * hash lookup and one handle call per key. The conversions are
+ * <ul>
+ * <li>a name to the enum constant of an enum field</li>
+ * <li>a {@link Number} or a numeric string to the type of a numeric field, e.g. a {@code Long}
+ * id column to an {@code int} field</li>
+ * <li>an integral number, or {@code "true"} or {@code "false"} ignoring case, to a
+ * {@code boolean} field, and a single character string to a {@code char} field</li>
+ * </ul>
+ * The conversions never lose data silently: a value out of the range of the field type, or with a
+ * fractional part for an integral field, throws an {@link IllegalArgumentException}, as does a
+ * string which is not a valid value.
+ * A {@code null} value leaves a primitive field unchanged and the keys matching no field are
+ * ignored. For a class with a generated {@link BeanIntrospection}, see
+ * {@link net.bndy.lib.introspect.Introspected}, the fields and the constructor are accessed by
+ * the generated code instead of reflection. Mappers are thread-safe.
+ *
+ * @param <T> the mapped type
+ */
+public final class BeanMapper<T> {
+
+    private static final ClassValue<BeanMapper<?>> MAPPERS = new ClassValue<BeanMapper<?>>() {
+        @Override
+        protected BeanMapper<?> computeValue(Class<?> type) {
+            return new BeanMapper<>(type);
+        }
+    };
+
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS;
+
+    static {
+        Map<Class<?>, Class<?>> wrappers = new HashMap<>();
+        wrappers.put(int.class, Integer.class);
+        wrappers.put(long.class, Long.class);
+        wrappers.put(double.class, Double.class);
+        wrappers.put(float.class, Float.class);
+        wrappers.put(short.class, Short.class);
+        wrappers.put(byte.class, Byte.class);
+        wrappers.put(boolean.class, Boolean.class);
+        wrappers.put(char.class, Character.class);
+        WRAPPERS = Collections.unmodifiableMap(wrappers);
+    }
+
+    private final Class<T> type;
+    private final Map<String, Property> properties;
+    private final BeanIntrospection<T> introspection;
+    private final MethodHandle factory;
+
+    private BeanMapper(Class<T> type) {
+        this.type = type;
+        this.introspection = BeanIntrospection.of(type);
+        Map<String, Property> properties = new LinkedHashMap<>();
+        if (introspection != null) {
+            // generated at compile time, reflection is only left for the properties it cannot access
+            for (int i = 0; i < introspection.getPropertyNames().size(); i++) {
+                String name = introspection.getPropertyNames().get(i);
+                if (!properties.containsKey(name)) {
+                    properties.put(name, introspection.isWritable(i) && introspection.isReadable(i)
+                        ? new Property(introspection, i)
+                        : new Property(ClassMetadata.of(type).getAccessor(name)));
+                }
+            }
+        } else {
+            ClassMetadata metadata = ClassMetadata.of(type);
+            for (Field field : metadata.getFields()) {
+                if (!properties.containsKey(field.getName())) {
+                    properties.put(field.getName(), new Property(metadata.getAccessor(field.getName())));
+                }
+            }
+        }
+        this.properties = properties;
+        this.factory = introspection != null && introspection.isInstantiable() ? null : factoryOf(type);
+    }
+
+    /**
+     * Gets the mapper of a class.
+     *
+     * @param type the class
+     * @param <T>  the type
+     * @return the mapper, created at the first call for the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanMapper<T> of(Class<T> type) {
+        return (BeanMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * Gets the mapped class.
+     *
+     * @return the class
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether a field can be set by name.
+     *
+     * @param name the field name
+     * @return {@code true} if there is a field of the name
+     */
+    public boolean hasProperty(String name) {
+        return properties.containsKey(name);
+    }
+
+    /**
+     * Creates an instance by its constructor without parameters and sets its fields.
+     *
+     * @param source the field values by name
+     * @return the instance
+     * @throws InstantiationException   if the class has no accessible constructor without
+     *                                  parameters or the constructor failed
+     * @throws IllegalArgumentException if a value cannot be converted to the type of its field
+     */
+    public T map(Map<String, ?> source) throws InstantiationException {
+        T target = newInstance();
+        apply(source, target);
+        return target;
+    }
+
+    /**
+     * Maps each source to a new instance.
+     *
+     * @param sources the sources
+     * @return the instances in the order of the sources
+     * @throws InstantiationException   if the class has no accessible constructor without
+     *                                  parameters or the constructor failed
+     * @throws IllegalArgumentException if a value cannot be converted to the type of its field
+     */
+    public List<T> mapAll(Collection<? extends Map<String, ?>> sources) throws InstantiationException {
+        List<T> result = new ArrayList<>(sources.size());
+        for (Map<String, ?> source : sources) {
+            result.add(map(source));
+        }
+        return result;
+    }
+
+    /**
+     * Sets the fields of an instance.
+     *
+     * @param source the field values by name
+     * @param target the instance
+     * @throws IllegalArgumentException if a value cannot be converted to the type of its field
+     */
+    public void apply(Map<String, ?> source, T target) {
+        for (Map.Entry<String, ?> entry : source.entrySet()) {
+            Property property = properties.get(entry.getKey());
+            if (property != null) {
+                property.set(target, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Sets a field of an instance.
+     *
+     * @param target the instance
+     * @param name   the field name
+     * @param value  the value
+     * @return {@code false} if there is no field of the name
+     * @throws IllegalArgumentException if the value cannot be converted to the type of the field
+     */
+    public boolean set(T target, String name, Object value) {
+        Property property = properties.get(name);
+        if (property == null) {
+            return false;
+        }
+        property.set(target, value);
+        return true;
+    }
+
+    /**
+     * Gets the values of the fields of an instance.
+     *
+     * @param source the instance
+     * @return the field values by name
+     */
+    public Map<String, Object> toMap(T source) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Property> entry : properties.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get(source));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() throws InstantiationException {
+        if (factory == null && introspection != null) {
+            return introspection.newInstance();
+        }
+        if (factory == null) {
+            throw new InstantiationException(type.getName() + " has no constructor without parameters");
+        }
+        try {
+            return (T) (Object) factory.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            InstantiationException ex = new InstantiationException(type.getName());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    private static MethodHandle factoryOf(Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers()) || type.isInterface() || type.isArray() || type.isPrimitive()) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(FACTORY_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A field with the conversion of its values, accessed by the generated introspection or by
+     * a {@link FieldAccessor}.
+     */
+    private static final class Property {
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+        private final Function<Object, Object> converter;
+        private final boolean primitive;
+
+        Property(FieldAccessor accessor) {
+            this(accessor.field().getType(), accessor::get, accessor::set);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Property(BeanIntrospection introspection, int index) {
+            this(introspection.getPropertyType(index), bean -> introspection.get(bean, index),
+                (bean, value) -> introspection.set(bean, index, value));
+        }
+
+        private Property(Class<?> type, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+            this.getter = getter;
+            this.setter = setter;
+            this.converter = converterOf(type);
+            this.primitive = type.isPrimitive();
+        }
+
+        Object get(Object source) {
+            return getter.apply(source);
+        }
+
+        void set(Object target, Object value) {
+            if (value == null && primitive) {
+                return;
+            }
+            setter.accept(target, converter == null || value == null ? value : converter.apply(value));
+        }
+    }
+
+    /**
+     * Gets the conversion of the values of a field type, or {@code null} if none.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Function<Object, Object> converterOf(Class<?> type) {
+        Class<?> target = wrap(type);
+        if (target.isEnum()) {
+            EnumLookup<?> constants = EnumLookup.of((Class<Enum>) target);
+            return value -> value instanceof String ? constants.valueOf((String) value) : value;
+        }
+        Function<Number, Object> fromNumber;
+        Function<String, Object> fromString;
+        if (target == Integer.class) {
+            fromNumber = n -> Math.toIntExact(longValueExact(n));
+            fromString = Integer::valueOf;
+        } else if (target == Long.class) {
+            fromNumber = BeanMapper::longValueExact;
+            fromString = Long::valueOf;
+        } else if (target == Double.class) {
+            fromNumber = n -> finite(n.doubleValue(), n);
+            fromString = Double::valueOf;
+        } else if (target == Float.class) {
+            fromNumber = n -> (float) finite(n.floatValue(), n);
+            fromString = Float::valueOf;
+        } else if (target == Short.class) {
+            fromNumber = n -> (short) exactRange(longValueExact(n), Short.MIN_VALUE, Short.MAX_VALUE);
+            fromString = Short::valueOf;
+        } else if (target == Byte.class) {
+            fromNumber = n -> (byte) exactRange(longValueExact(n), Byte.MIN_VALUE, Byte.MAX_VALUE);
+            fromString = Byte::valueOf;
+        } else if (target == BigDecimal.class) {
+            fromNumber = n -> n instanceof BigInteger ? new BigDecimal((BigInteger) n) : new BigDecimal(n.toString());
+            fromString = BigDecimal::new;
+        } else if (target == BigInteger.class) {
+            fromNumber = n -> n instanceof BigDecimal ? ((BigDecimal) n).toBigIntegerExact()
+                : n instanceof Double || n instanceof Float ? new BigDecimal(n.toString()).toBigIntegerExact()
+                : BigInteger.valueOf(longValueExact(n));
+            fromString = BigInteger::new;
+        } else if (target == Boolean.class) {
+            fromNumber = n -> longValueExact(n) != 0;
+            fromString = s -> {
+                if ("true".equalsIgnoreCase(s)) {
+                    return true;
+                }
+                if ("false".equalsIgnoreCase(s)) {
+                    return false;
+                }
+                throw new NumberFormatException("Not a boolean");
+            };
+        } else if (target == Character.class) {
+            fromNumber = null;
+            fromString = s -> s.length() == 1 ? (Object) s.charAt(0) : s;
+        } else {
+            return null;
+        }
+        return value -> {
+            if (target.isInstance(value)) {
+                return value;
+            }
+            try {
+                if (value instanceof Number && fromNumber != null) {
+                    return fromNumber.apply((Number) value);
+                }
+                if (value instanceof String) {
+                    return fromString.apply(((String) value).trim());
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Can not convert \"" + value + "\" to " + type.getName(), e);
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Gets the value of a number as a long.
+     *
+     * @throws ArithmeticException if the number has a fractional part or is out of the long range
+     */
+    private static long longValueExact(Number n) {
+        if (n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte) {
+            return n.longValue();
+        }
+        if (n instanceof BigInteger) {
+            return ((BigInteger) n).longValueExact();
+        }
+        if (n instanceof Double || n instanceof Float) {
+            double d = n.doubleValue();
+            // 2^63 is exactly representable, Long.MAX_VALUE is not
+            if (d != Math.rint(d) || d < -0x1p63 || d >= 0x1p63) {
+                throw new ArithmeticException("Not an exact long");
+            }
+            return (long) d;
+        }
+        return new BigDecimal(n.toString()).longValueExact();
+    }
+
+    private static long exactRange(long value, long min, long max) {
+        if (value < min || value > max) {
+            throw new ArithmeticException("Out of range");
+        }
+        return value;
+    }
+
+    /**
+     * Checks a floating point value did not overflow to an infinity in the conversion.
+     */
+    private static double finite(double value, Number source) {
+        boolean infiniteSource = (source instanceof Double || source instanceof Float) && Double.isInfinite(source.doubleValue());
+        if (Double.isInfinite(value) && !infiniteSource) {
+            throw new ArithmeticException("Out of range");
+        }
+        return value;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? WRAPPERS.get(type) : type;
+    }
+}
@@ -0,0 +1,196 @@
+package net.bndy.lib;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The reflection metadata of a class, collected once and cached per class in a
+ * {@link ClassValue}, so it goes away with the class and never keeps a class loader alive.
+ * <p>
+ * The members are the public ones, including inherited ones, followed by the declared ones of the
+ * class and of its superclasses, each member once. The lookups by name are hash lookups, and when
+ * several members have the same name the first one in that order wins.
+ * <p>
+ * The getters return the cached members and unmodifiable lists of them, so a lookup costs no
+ * more than a hash hit. The members are shared by all callers and never made accessible: callers
+ * must not call {@code setAccessible} on them, but read and write fields through a
+ * {@link FieldAccessor}, which makes its own copy of the field accessible at its first use, and
+ * never for a member of a JDK class, see {@link FieldAccessor#of(Field)}.
+ */
+public final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<Field> fields;
+    private final List<Method> methods;
+    private final Map<String, Field> fieldsByName = new HashMap<>();
+    private final Map<String, List<Method>> methodsByName = new HashMap<>();
+    private final Map<String, Map<Class<? extends Annotation>, Annotation>> fieldAnnotations = new HashMap<>();
+    private final ConcurrentMap<String, FieldAccessor> accessors = new ConcurrentHashMap<>();
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+
+        Set<Field> fields = new LinkedHashSet<>(Arrays.asList(type.getFields()));
+        Set<Method> methods = new LinkedHashSet<>(Arrays.asList(type.getMethods()));
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            fields.addAll(Arrays.asList(c.getDeclaredFields()));
+            methods.addAll(Arrays.asList(c.getDeclaredMethods()));
+        }
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+
+        for (Field field : this.fields) {
+            if (!fieldsByName.containsKey(field.getName())) {
+                fieldsByName.put(field.getName(), field);
+                Map<Class<? extends Annotation>, Annotation> annotations = new HashMap<>();
+                for (Annotation annotation : field.getDeclaredAnnotations()) {
+                    annotations.put(annotation.annotationType(), annotation);
+                }
+                fieldAnnotations.put(field.getName(), annotations);
+            }
+        }
+        for (Method method : this.methods) {
+            methodsByName.computeIfAbsent(method.getName(), k -> new ArrayList<>(1)).add(method);
+        }
+        methodsByName.replaceAll((name, overloads) -> Collections.unmodifiableList(overloads));
+    }
+
+    /**
+     * Gets the metadata of a class.
+     *
+     * @param type the class
+     * @return the metadata, collected at the first call for the class
+     */
+    public static ClassMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Gets the class.
+     *
+     * @return the class
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Gets all fields.
+     *
+     * @return the unmodifiable list of the fields
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Gets a field by name.
+     *
+     * @param name the field name
+     * @return the field, or {@code null} if none
+     */
+    public Field getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Gets the accessor of a field by name, created at the first call for the field.
+     *
+     * @param name the field name
+     * @return the accessor, or {@code null} if there is no field of the name
+     */
+    public FieldAccessor getAccessor(String name) {
+        FieldAccessor accessor = accessors.get(name);
+        if (accessor == null) {
+            Field field = fieldsByName.get(name);
+            if (field == null) {
+                return null;
+            }
+            accessor = accessors.computeIfAbsent(name, k -> FieldAccessor.of(field));
+        }
+        return accessor;
+    }
+
+    /**
+     * Gets all methods.
+     *
+     * @return the unmodifiable list of the methods
+     */
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Gets the first method of a name.
+     *
+     * @param name the method name
+     * @return the method, or {@code null} if none
+     */
+    public Method getMethod(String name) {
+        List<Method> result = methodsByName.get(name);
+        return result == null ? null : result.get(0);
+    }
+
+    /**
+     * Gets the methods of a name, such as the overloads of a method.
+     *
+     * @param name the method name
+     * @return the unmodifiable list of the methods, empty if none
+     */
+    public List<Method> getMethods(String name) {
+        List<Method> result = methodsByName.get(name);
+        return result == null ? Collections.<Method>emptyList() : result;
+    }
+
+    /**
+     * Gets an annotation of a field.
+     *
+     * @param fieldName       the field name
+     * @param annotationClass the annotation class
+     * @param <T>             the annotation type
+     * @return the annotation, or {@code null} if the field is absent or not annotated
+     */
+    public <T extends Annotation> T getFieldAnnotation(String fieldName, Class<T> annotationClass) {
+        Map<Class<? extends Annotation>, Annotation> annotations = fieldAnnotations.get(fieldName);
+        return annotations == null ? null : annotationClass.cast(annotations.get(annotationClass));
+    }
+
+    /**
+     * Gets a new instance of a field, whose accessible flag is independent of the original one.
+     */
+    static Field copy(Field field) {
+        try {
+            return field.getDeclaringClass().getDeclaredField(field.getName());
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks whether a class is part of the JDK, whose non-public members are never made
+     * accessible.
+     */
+    static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return type.getClassLoader() == null || name.startsWith("java.") || name.startsWith("javax.")
+            || name.startsWith("jdk.") || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+}
@@ -7,15 +7,30 @@ package net.bndy.lib;
 import java.lang.reflect.Array;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Collection Helper
  */
 public class CollectionHelper {
 
+    /**
+     * The size below which the parallel methods run sequentially. This is a conservative
+     * placeholder, not a measured crossover: it has only been checked to keep the overhead of the
+     * parallel path small on a single core. Callers on multi-core hardware should measure and pass
+     * their own threshold, see docs/lib-common/parallel-collections.md.
+     */
+    public static final int PARALLEL_THRESHOLD = 100_000;
+
+    /**
+     * The smallest count of elements handled by one fork-join task.
+     */
+    private static final int MIN_CHUNK_SIZE = 8_192;
+
     /**
      * Checks whether the collection is null or empty.
      * @param source The collection
@@ -34,25 +49,28 @@ public class CollectionHelper {
      * @return the first element
      */
     public static <T> T first(Collection<T> source) {
-        if (source == null)
+        if (source == null || source.isEmpty())
             return null;
-
-        Optional<T> first = source.stream().findFirst();
-        if (first.isPresent()) {
-            return first.get();
-        }
-        return null;
+        return source.iterator().next();
     }
 
     /**
-     * Gets the element matched the condition.
+     * Gets the element matched the condition, the rest of the source is not tested.
      * @param source the collection
      * @param predicate the condition
      * @param <T> the type of element in source
      * @return the first element matched
      */
     public static <T> T first(Collection<T> source, Predicate<T> predicate) {
-        return first(filter(source, predicate));
+        if (source == null)
+            return null;
+
+        for (T t : source) {
+            if (predicate.test(t)) {
+                return t;
+            }
+        }
+        return null;
     }
 
     /**
@@ -101,7 +119,14 @@ public class CollectionHelper {
     public static <T> List<T> filter(Collection<T> source, Predicate<T> predicate) {
         if (source == null)
             return new ArrayList<>();
-        return source.stream().filter(predicate).collect(Collectors.toList());
+
+        List<T> result = new ArrayList<>();
+        for (T t : source) {
+            if (predicate.test(t)) {
+                result.add(t);
+            }
+        }
+        return result;
     }
 
     /**
@@ -115,12 +140,168 @@ public class CollectionHelper {
     public static <T, R> List<R> convert(Collection<T> source, Function<T, R> mapper) {
         if (source == null)
             return new ArrayList<>();
-        return source.stream().map(mapper).collect(Collectors.toList());
+
+        List<R> result = new ArrayList<>(source.size());
+        for (T t : source) {
+            result.add(mapper.apply(t));
+        }
+        return result;
     }
 
+    /**
+     * Gets all matched elements, testing them in parallel on the common fork-join pool when the
+     * source has at least {@link #PARALLEL_THRESHOLD} elements.
+     * @param source The collection source
+     * @param predicate The condition, which must be thread-safe
+     * @param <T> The type of element
+     * @return The matched elements in the order of the source
+     */
+    public static <T> List<T> parallelFilter(Collection<T> source, Predicate<T> predicate) {
+        return parallelFilter(source, predicate, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
 
     /**
-     * Converts a Map object to entity.
+     * Gets all matched elements, testing them in parallel on the specified pool when the source
+     * has at least <code>threshold</code> elements.
+     * @param source The collection source
+     * @param predicate The condition, which must be thread-safe
+     * @param pool The pool running the tests, such as a pool reserved for batch work
+     * @param threshold The size below which the elements are tested sequentially
+     * @param <T> The type of element
+     * @return The matched elements in the order of the source
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> parallelFilter(Collection<T> source, Predicate<T> predicate, ForkJoinPool pool, int threshold) {
+        if (source == null)
+            return new ArrayList<>();
+        if (source.isEmpty() || source.size() < threshold || pool.getParallelism() < 2)
+            return filter(source, predicate);
+
+        Object[] items = source.toArray();
+        int chunkSize = chunkSize(items.length, pool);
+        int chunks = (items.length + chunkSize - 1) / chunkSize;
+        Object[][] matches = new Object[chunks][];
+        int[] counts = new int[chunks];
+        pool.invoke(new ChunkAction(0, chunks, chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(from + chunkSize, items.length);
+            Object[] matched = new Object[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test((T) items[i])) {
+                    matched[count++] = items[i];
+                }
+            }
+            matches[chunk] = matched;
+            counts[chunk] = count;
+        }));
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        Object[] result = new Object[total];
+        for (int chunk = 0, offset = 0; chunk < chunks; chunk++) {
+            System.arraycopy(matches[chunk], 0, result, offset, counts[chunk]);
+            offset += counts[chunk];
+        }
+        return new ArrayList<>((List<T>) Arrays.asList(result));
+    }
+
+    /**
+     * Converts a collection typed <code>T</code> to another collection typed <code>R</code>,
+     * converting in parallel on the common fork-join pool when the source has at least
+     * {@link #PARALLEL_THRESHOLD} elements.
+     * @param source The source typed T
+     * @param mapper The mapper for T to R, which must be thread-safe
+     * @param <T> The source element type
+     * @param <R> The destination element type
+     * @return A collection typed R in the order of the source
+     */
+    public static <T, R> List<R> parallelConvert(Collection<T> source, Function<T, R> mapper) {
+        return parallelConvert(source, mapper, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Converts a collection typed <code>T</code> to another collection typed <code>R</code>,
+     * converting in parallel on the specified pool when the source has at least
+     * <code>threshold</code> elements.
+     * @param source The source typed T
+     * @param mapper The mapper for T to R, which must be thread-safe
+     * @param pool The pool running the conversions, such as a pool reserved for batch work
+     * @param threshold The size below which the elements are converted sequentially
+     * @param <T> The source element type
+     * @param <R> The destination element type
+     * @return A collection typed R in the order of the source
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> List<R> parallelConvert(Collection<T> source, Function<T, R> mapper, ForkJoinPool pool, int threshold) {
+        if (source == null)
+            return new ArrayList<>();
+        if (source.isEmpty() || source.size() < threshold || pool.getParallelism() < 2)
+            return convert(source, mapper);
+
+        // toArray may return a T[] on Java 8, e.g. for Arrays.asList, which can't hold R values
+        Object[] items = source.toArray();
+        Object[] results = new Object[items.length];
+        int chunkSize = chunkSize(items.length, pool);
+        int chunks = (items.length + chunkSize - 1) / chunkSize;
+        // every chunk writes its own slots, so the order needs no merge
+        pool.invoke(new ChunkAction(0, chunks, chunk -> {
+            int to = Math.min((chunk + 1) * chunkSize, items.length);
+            for (int i = chunk * chunkSize; i < to; i++) {
+                results[i] = mapper.apply((T) items[i]);
+            }
+        }));
+        return new ArrayList<>((List<R>) Arrays.asList(results));
+    }
+
+    private static int chunkSize(int size, ForkJoinPool pool) {
+        // a few chunks per worker let idle workers steal from slow ones
+        return Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4) + 1);
+    }
+
+    /**
+     * Runs a leaf action for each chunk of a range, splitting the range in halves.
+     */
+    private static final class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer leaf;
+
+        ChunkAction(int from, int to, IntConsumer leaf) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                leaf.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(from, middle, leaf), new ChunkAction(middle, to, leaf));
+        }
+    }
+
+    /**
+     * Creates a lazy query over the source, see {@link Query}.
+     * @param source the source
+     * @param <T> the element type
+     * @return the query
+     */
+    public static <T> Query<T> query(Iterable<T> source) {
+        return Query.from(source);
+    }
+
+
+    /**
+     * Converts a Map object to entity by the cached setters of {@link BeanMapper}, which also
+     * converts the values to the field types.
      * @param mappings the Map
      * @param targetClass the destination class
      * @param <T> the result type
@@ -130,12 +311,7 @@ public class CollectionHelper {
      * @throws ClassNotFoundException if targetClass not found
      */
     public static <T> T convertMap2(Map<String, Object> mappings, Class<T> targetClass) throws InstantiationException, IllegalAccessException, ClassNotFoundException {
-        @SuppressWarnings("unchecked")
-		T t = (T) ReflectionHelper.newInstance(targetClass);
-        for(String key: mappings.keySet()) {
-            ReflectionHelper.setFieldValue(t, key, mappings.get(key));
-        }
-        return t;
+        return BeanMapper.of(targetClass).map(mappings);
     }
 
     /**
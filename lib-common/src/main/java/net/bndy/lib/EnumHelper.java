@@ -8,7 +8,6 @@ package net.bndy.lib;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * @author Bendy Zhang 
@@ -27,26 +26,42 @@ public class EnumHelper {
      */
     @Deprecated
     public static <T extends Enum<T>> T convert(String name, Class<T> enumClazz) {
-        Set<T> values = EnumSet.allOf(enumClazz);
-        for(T t: values) {
-            if (t.name().equalsIgnoreCase(name)) {
-                return t;
-            }
-        }
-        return null;
+        return EnumLookup.of(enumClazz).find(name);
     }
     
     /**
      * Converts an Enum type to Map instance stored key value pair.
+     * Use {@link EnumLookup#toMap()} for the cached unmodifiable map instead of a new copy.
      * @param enumType the Enum type
      * @return an HashMap instance with ordinal as key and name as value.
      */
     public static <T extends Enum<T>>  Map<Integer, String> toMap(Class<T> enumType) {
-        Map<Integer, String> result = new HashMap<Integer, String>();
-        Set<T> values = EnumSet.allOf(enumType);
-        for(T v: values) {
-            result.put(v.ordinal(), v.name());
-        }
-        return result;
+        return new HashMap<>(EnumLookup.of(enumType).toMap());
+    }
+
+    /**
+     * Converts delimited names, ignoring case and white spaces, to an EnumSet.
+     * @param names the names, such as "active, locked"
+     * @param separator the separator
+     * @param enumType the Enum type
+     * @param <T>  the enum type
+     * @return an EnumSet instance
+     * @throws IllegalArgumentException if a name is not defined in enum
+     */
+    public static <T extends Enum<T>> EnumSet<T> toEnumSet(String names, char separator, Class<T> enumType) {
+        return EnumLookup.of(enumType).parseSet(names, separator);
+    }
+
+    /**
+     * Converts delimited names, ignoring case and white spaces, to a bitmask of their ordinals.
+     * @param names the names, such as "active, locked"
+     * @param separator the separator
+     * @param enumType the Enum type with at most 64 constants
+     * @param <T>  the enum type
+     * @return the bitmask whose bit n is set for the ordinal n
+     * @throws IllegalArgumentException if a name is not defined in enum
+     */
+    public static <T extends Enum<T>> long toMask(String names, char separator, Class<T> enumType) {
+        return EnumLookup.of(enumType).parseMask(names, separator);
     }
 }
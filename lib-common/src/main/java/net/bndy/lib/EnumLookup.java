@@ -0,0 +1,328 @@
+package net.bndy.lib;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The precomputed lookups of an enum class, built once and cached per class in a
+ * {@link ClassValue}, for parsing enum names from JSON and query parameters, e.g.
+ * <pre>
+ *     Status status = EnumLookup.of(Status.class).find("active");
+ *     EnumSet&lt;Status&gt; filter = EnumLookup.of(Status.class).parseSet("active, locked", ',');
+ * </pre>
+ * Names are matched ignoring case as {@link String#equalsIgnoreCase(String)} does, through a hash
+ * table keyed by the case-folded names, so a lookup neither scans the constants nor allocates.
+ * If two constants differ only by case, the first declared one wins.
+ *
+ * @param <E> the enum type
+ */
+public final class EnumLookup<E extends Enum<E>> {
+
+    private static final ClassValue<EnumLookup<?>> CACHE = new ClassValue<EnumLookup<?>>() {
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        protected EnumLookup<?> computeValue(Class<?> type) {
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException(type.getName() + " is not an enum");
+            }
+            return new EnumLookup(type);
+        }
+    };
+
+    private final Class<E> type;
+    private final E[] constants;
+    private final List<E> values;
+    private final Object[] table;
+    private final int mask;
+    private final Map<Integer, String> map;
+
+    private EnumLookup(Class<E> type) {
+        this.type = type;
+        this.constants = type.getEnumConstants();
+        this.values = Collections.unmodifiableList(Arrays.asList(constants.clone()));
+
+        int capacity = Integer.highestOneBit(Math.max(2, constants.length * 2) - 1) << 1;
+        this.table = new Object[capacity];
+        this.mask = capacity - 1;
+        for (E constant : constants) {
+            String name = constant.name();
+            int i = hash(name, 0, name.length()) & mask;
+            while (table[i] != null && !matches(constant(i), name, 0, name.length())) {
+                i = (i + 1) & mask;
+            }
+            if (table[i] == null) {
+                table[i] = constant;
+            }
+        }
+
+        Map<Integer, String> map = new LinkedHashMap<>();
+        for (E constant : constants) {
+            map.put(constant.ordinal(), constant.name());
+        }
+        this.map = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Gets the lookups of an enum class.
+     *
+     * @param type the enum class
+     * @param <E>  the enum type
+     * @return the lookups, built at the first call for the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E>> EnumLookup<E> of(Class<E> type) {
+        return (EnumLookup<E>) CACHE.get(type);
+    }
+
+    /**
+     * Gets the enum class.
+     *
+     * @return the class
+     */
+    public Class<E> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the constants in ordinal order.
+     *
+     * @return the unmodifiable list of constants
+     */
+    public List<E> values() {
+        return values;
+    }
+
+    /**
+     * Finds a constant by name ignoring case.
+     *
+     * @param name the name
+     * @return the constant, or {@code null} if none or the name is {@code null}
+     */
+    public E find(CharSequence name) {
+        return name == null ? null : find(name, 0, name.length());
+    }
+
+    /**
+     * Finds a constant by a range of characters ignoring case.
+     *
+     * @param source the characters
+     * @param start  the start index, inclusive
+     * @param end    the end index, exclusive
+     * @return the constant, or {@code null} if none
+     */
+    public E find(CharSequence source, int start, int end) {
+        int i = hash(source, start, end) & mask;
+        while (table[i] != null) {
+            if (matches(constant(i), source, start, end)) {
+                return constant(i);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a constant by its exact name as {@link Enum#valueOf(Class, String)}.
+     *
+     * @param name the name
+     * @return the constant
+     * @throws IllegalArgumentException if there is no constant of the name
+     */
+    public E valueOf(String name) {
+        E constant = find(name);
+        if (constant != null && constant.name().equals(name)) {
+            return constant;
+        }
+        for (E c : constants) {
+            // another constant which differs only by case
+            if (c.name().equals(name)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + type.getCanonicalName() + "." + name);
+    }
+
+    /**
+     * Gets a constant by ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the constant, or {@code null} if out of range
+     */
+    public E get(int ordinal) {
+        return ordinal >= 0 && ordinal < constants.length ? constants[ordinal] : null;
+    }
+
+    /**
+     * Gets the names by ordinal.
+     *
+     * @return the unmodifiable map with ordinal as key and name as value
+     */
+    public Map<Integer, String> toMap() {
+        return map;
+    }
+
+    /**
+     * Parses the delimited names of constants ignoring case and white spaces around them. Empty
+     * names are skipped.
+     *
+     * @param names     the names, such as {@code "active, locked"}
+     * @param separator the separator
+     * @return the constants
+     * @throws IllegalArgumentException if a name matches no constant
+     */
+    public EnumSet<E> parseSet(CharSequence names, char separator) {
+        EnumSet<E> result = EnumSet.noneOf(type);
+        if (names == null) {
+            return result;
+        }
+        int start = 0;
+        while (start <= names.length()) {
+            int end = indexOf(names, separator, start);
+            E constant = findTrimmed(names, start, end);
+            if (constant != null) {
+                result.add(constant);
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the delimited names of constants into a bitmask whose bit {@code n} is set for the
+     * constant of ordinal {@code n}, the same way as {@link #parseSet(CharSequence, char)}.
+     *
+     * @param names     the names, such as {@code "active, locked"}
+     * @param separator the separator
+     * @return the bitmask
+     * @throws IllegalArgumentException      if a name matches no constant
+     * @throws UnsupportedOperationException if the enum has more than 64 constants
+     */
+    public long parseMask(CharSequence names, char separator) {
+        checkMaskable();
+        long mask = 0;
+        if (names == null) {
+            return mask;
+        }
+        int start = 0;
+        while (start <= names.length()) {
+            int end = indexOf(names, separator, start);
+            E constant = findTrimmed(names, start, end);
+            if (constant != null) {
+                mask |= 1L << constant.ordinal();
+            }
+            start = end + 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Converts constants to a bitmask of their ordinals.
+     *
+     * @param set the constants
+     * @return the bitmask
+     * @throws UnsupportedOperationException if the enum has more than 64 constants
+     */
+    public long toMask(Set<E> set) {
+        checkMaskable();
+        long mask = 0;
+        for (E constant : set) {
+            mask |= 1L << constant.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a bitmask of ordinals to constants, ignoring the bits of no constant.
+     *
+     * @param mask the bitmask
+     * @return the constants
+     */
+    public EnumSet<E> fromMask(long mask) {
+        EnumSet<E> result = EnumSet.noneOf(type);
+        for (int i = 0; i < constants.length && i < 64; i++) {
+            if ((mask & (1L << i)) != 0) {
+                result.add(constants[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds a constant by a range without its leading and trailing white spaces.
+     *
+     * @return the constant, or {@code null} if the range is blank
+     */
+    private E findTrimmed(CharSequence names, int start, int end) {
+        while (start < end && names.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && names.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        E constant = find(names, start, end);
+        if (constant == null) {
+            throw new IllegalArgumentException("No enum constant " + type.getCanonicalName() + "."
+                + names.subSequence(start, end));
+        }
+        return constant;
+    }
+
+    private void checkMaskable() {
+        if (constants.length > 64) {
+            throw new UnsupportedOperationException(type.getName() + " has more than 64 constants");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E constant(int index) {
+        return (E) table[index];
+    }
+
+    private static int indexOf(CharSequence source, char ch, int start) {
+        for (int i = start; i < source.length(); i++) {
+            if (source.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return source.length();
+    }
+
+    private static boolean matches(Enum<?> constant, CharSequence source, int start, int end) {
+        String name = constant.name();
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char a = name.charAt(i);
+            char b = source.charAt(start + i);
+            if (a != b && fold(a) != fold(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence source, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(source.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Folds the case of a character, two characters are equal ignoring case as
+     * {@link String#equalsIgnoreCase(String)} if their folded characters are equal.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,432 @@
+package net.bndy.lib;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Gets and sets a field through {@link MethodHandle}s resolved once, instead of the access checks
+ * of {@link Field#get(Object)} and {@link Field#set(Object, Object)} on each call.
+ * <p>
+ * The accessors of {@code long}, {@code int}, {@code double} and {@code boolean} fields have
+ * primitive paths, e.g. {@link #getLong(Object)} and {@link #setLong(Object, long)}, which never
+ * box. The other fields box on the primitive methods as {@link Field} does. A field which cannot
+ * be resolved to handles, such as a {@code static final} one, falls back on reflection.
+ * <p>
+ * Values are not converted, see {@link BeanMapper} for that. Accessors are thread-safe, the
+ * ones returned by {@link #of(Class, String)} are cached in the {@link ClassMetadata} of the
+ * class.
+ */
+public abstract class FieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Gets the cached accessor of a field by name.
+     *
+     * @param type the class
+     * @param name the field name
+     * @return the accessor, or {@code null} if there is no field of the name
+     * @see ClassMetadata#getField(String)
+     */
+    public static FieldAccessor of(Class<?> type, String name) {
+        return ClassMetadata.of(type).getAccessor(name);
+    }
+
+    /**
+     * Creates the accessor of a field. The accessor works on its own copy of the field, which it
+     * makes accessible unless the field is declared by a JDK class, so the given field is left as
+     * it is.
+     *
+     * @param field the field
+     * @return the accessor
+     */
+    public static FieldAccessor of(Field field) {
+        field = ClassMetadata.copy(field);
+        if (!ClassMetadata.isJdkClass(field.getDeclaringClass())) {
+            try {
+                field.setAccessible(true);
+            } catch (RuntimeException e) {
+                // the handles below then fail for a non-public member
+            }
+        }
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            getter = lookup.unreflectGetter(field);
+            setter = lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            return new ReflectiveAccessor(field);
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            // takes and ignores the target as the instance fields
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            setter = MethodHandles.dropArguments(setter, 0, Object.class);
+        }
+        Class<?> type = field.getType();
+        if (type == long.class) {
+            return new LongAccessor(field, getter, setter);
+        }
+        if (type == int.class) {
+            return new IntAccessor(field, getter, setter);
+        }
+        if (type == double.class) {
+            return new DoubleAccessor(field, getter, setter);
+        }
+        if (type == boolean.class) {
+            return new BooleanAccessor(field, getter, setter);
+        }
+        return new ObjectAccessor(field, getter, setter);
+    }
+
+    /**
+     * Gets the field.
+     *
+     * @return a copy of the field
+     */
+    public Field getField() {
+        return ClassMetadata.copy(field);
+    }
+
+    Field field() {
+        return field;
+    }
+
+    /**
+     * Gets the value, boxed if primitive.
+     *
+     * @param target the instance, ignored for a static field
+     * @return the value
+     */
+    public abstract Object get(Object target);
+
+    /**
+     * Sets the value.
+     *
+     * @param target the instance, ignored for a static field
+     * @param value  the value, of the field type or its wrapper if primitive
+     * @throws IllegalArgumentException if the value is not of the field type
+     */
+    public abstract void set(Object target, Object value);
+
+    /**
+     * Gets the value of a numeric field as {@code long}.
+     *
+     * @param target the instance, ignored for a static field
+     * @return the value
+     * @throws IllegalArgumentException if the field is not numeric
+     */
+    public long getLong(Object target) {
+        return toNumber(get(target)).longValue();
+    }
+
+    /**
+     * Sets the value of a {@code long} field.
+     *
+     * @param target the instance, ignored for a static field
+     * @param value  the value
+     * @throws IllegalArgumentException if the field does not hold a {@code long}
+     */
+    public void setLong(Object target, long value) {
+        set(target, value);
+    }
+
+    /**
+     * Gets the value of a numeric field as {@code int}.
+     *
+     * @param target the instance, ignored for a static field
+     * @return the value
+     * @throws IllegalArgumentException if the field is not numeric
+     */
+    public int getInt(Object target) {
+        return toNumber(get(target)).intValue();
+    }
+
+    /**
+     * Sets the value of an {@code int} field.
+     *
+     * @param target the instance, ignored for a static field
+     * @param value  the value
+     * @throws IllegalArgumentException if the field does not hold an {@code int}
+     */
+    public void setInt(Object target, int value) {
+        set(target, value);
+    }
+
+    /**
+     * Gets the value of a numeric field as {@code double}.
+     *
+     * @param target the instance, ignored for a static field
+     * @return the value
+     * @throws IllegalArgumentException if the field is not numeric
+     */
+    public double getDouble(Object target) {
+        return toNumber(get(target)).doubleValue();
+    }
+
+    /**
+     * Sets the value of a {@code double} field.
+     *
+     * @param target the instance, ignored for a static field
+     * @param value  the value
+     * @throws IllegalArgumentException if the field does not hold a {@code double}
+     */
+    public void setDouble(Object target, double value) {
+        set(target, value);
+    }
+
+    /**
+     * Gets the value of a {@code boolean} field.
+     *
+     * @param target the instance, ignored for a static field
+     * @return the value
+     * @throws IllegalArgumentException if the field does not hold a {@code boolean}
+     */
+    public boolean getBoolean(Object target) {
+        Object value = get(target);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new IllegalArgumentException(describe() + " is not a boolean");
+    }
+
+    /**
+     * Sets the value of a {@code boolean} field.
+     *
+     * @param target the instance, ignored for a static field
+     * @param value  the value
+     * @throws IllegalArgumentException if the field does not hold a {@code boolean}
+     */
+    public void setBoolean(Object target, boolean value) {
+        set(target, value);
+    }
+
+    private Number toNumber(Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException(describe() + " is not numeric");
+    }
+
+    String describe() {
+        return field.getType().getName() + " field " + field.getDeclaringClass().getName() + "." + field.getName();
+    }
+
+    /**
+     * Rethrows what a handle threw as {@link Field} would.
+     */
+    RuntimeException rethrow(Throwable e, Object value) {
+        if (e instanceof ClassCastException) {
+            return new IllegalArgumentException("Can not set " + describe() + " to "
+                + (value == null ? "null" : value.getClass().getName()), e);
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    private static class ObjectAccessor extends FieldAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        ObjectAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            this.getter = getter.asType(GETTER_TYPE);
+            this.setter = setter.asType(SETTER_TYPE);
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e, null);
+            }
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            if (value == null && field().getType().isPrimitive()) {
+                throw new IllegalArgumentException("Can not set " + describe() + " to null");
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e, value);
+            }
+        }
+    }
+
+    private static final class LongAccessor extends ObjectAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        LongAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+            this.getter = getter.asType(MethodType.methodType(long.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+        }
+
+        @Override
+        public long getLong(Object target) {
+            try {
+                return (long) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e, null);
+            }
+        }
+
+        @Override
+        public void setLong(Object target, long value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e, value);
+            }
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            return getLong(target);
+        }
+    }
+
+    private static final class IntAccessor extends ObjectAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        IntAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+            this.getter = getter.asType(MethodType.methodType(int.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+        }
+
+        @Override
+        public int getInt(Object target) {
+            try {
+                return (int) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e, null);
+            }
+        }
+
+        @Override
+        public void setInt(Object target, int value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e, value);
+            }
+        }
+
+        @Override
+        public long getLong(Object target) {
+            return getInt(target);
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            return getInt(target);
+        }
+    }
+
+    private static final class DoubleAccessor extends ObjectAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        DoubleAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+            this.getter = getter.asType(MethodType.methodType(double.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return (double) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e, null);
+            }
+        }
+
+        @Override
+        public void setDouble(Object target, double value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e, value);
+            }
+        }
+    }
+
+    private static final class BooleanAccessor extends ObjectAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        BooleanAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+            this.getter = getter.asType(MethodType.methodType(boolean.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            try {
+                return (boolean) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e, null);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object target, boolean value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e, value);
+            }
+        }
+    }
+
+    /**
+     * Goes through {@link Field}, for the fields which have no handles.
+     */
+    private static final class ReflectiveAccessor extends FieldAccessor {
+
+        ReflectiveAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return field().get(target);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                field().set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
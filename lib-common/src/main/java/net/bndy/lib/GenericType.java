@@ -1,17 +1,29 @@
 package net.bndy.lib;
 
-import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 
 public class GenericType<T> {
 
     protected Class<T> clazz;
+    protected Type type;
 
+    /**
+     * Resolves T from the subclass through {@link TypeResolver}, e.g. {@code List<String>} for
+     * {@code new GenericType<List<String>>() {}}, with {@code List.class} as the class. Without a
+     * subclass binding T, the class is the erasure of T.
+     */
     @SuppressWarnings("unchecked")
 	public GenericType() {
-        this.clazz = (Class<T>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+        TypeResolver resolver = TypeResolver.of(getClass());
+        this.type = resolver.getTypeArgument(GenericType.class, 0);
+        this.clazz = (Class<T>) resolver.getRawTypeArgument(GenericType.class, 0);
     }
 
     public Class<T> getClazz() {
         return clazz;
     }
+
+    public Type getType() {
+        return type;
+    }
 }
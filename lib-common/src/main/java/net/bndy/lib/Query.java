@@ -0,0 +1,326 @@
+package net.bndy.lib;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A lazily evaluated query over an {@link Iterable}, such as
+ * <pre>
+ *     List&lt;String&gt; names = Query.from(users)
+ *         .where(u -&gt; u.isActive())
+ *         .select(User::getName)
+ *         .take(10)
+ *         .toList();
+ * </pre>
+ * Nothing runs until a terminal method is called. The stages are then fused into a single pass
+ * over the source: each element is pushed through all stages before the next one is read, no
+ * intermediate collection is built, and the pass stops as soon as the result is known, e.g. at
+ * the first match of {@link #first()} or after {@link #take(int)} elements. Only the terminal
+ * methods returning collections allocate them.
+ * <p>
+ * A query can be run many times and reads its source again each time. It is not an
+ * {@link Iterable} since its stages push their elements and cannot be suspended; iterate it with
+ * {@link #forEach(Consumer)} or a terminal method.
+ *
+ * @param <T> the element type
+ */
+public abstract class Query<T> {
+
+    /**
+     * Receives the elements of a pass.
+     */
+    @FunctionalInterface
+    protected interface Sink<T> {
+
+        /**
+         * Receives an element.
+         *
+         * @param t the element
+         * @return {@code false} to stop the pass
+         */
+        boolean accept(T t);
+    }
+
+    /**
+     * Pushes the elements of this query into the sink until it returns {@code false}.
+     *
+     * @param sink the sink
+     */
+    protected abstract void run(Sink<? super T> sink);
+
+    /**
+     * Creates a query over an iterable.
+     *
+     * @param source the source, a {@code null} source is empty
+     * @param <T>    the element type
+     * @return the query
+     */
+    public static <T> Query<T> from(Iterable<T> source) {
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                if (source == null) {
+                    return;
+                }
+                if (source instanceof List && source instanceof RandomAccess) {
+                    // avoids the iterator of array based lists
+                    List<T> list = (List<T>) source;
+                    for (int i = 0, size = list.size(); i < size; i++) {
+                        if (!sink.accept(list.get(i))) {
+                            return;
+                        }
+                    }
+                    return;
+                }
+                for (T t : source) {
+                    if (!sink.accept(t)) {
+                        return;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a query over elements.
+     *
+     * @param source the elements
+     * @param <T>    the element type
+     * @return the query
+     */
+    @SafeVarargs
+    public static <T> Query<T> from(T... source) {
+        // the array is only read, never passed on, so it cannot pollute the heap
+        if (source == null) {
+            return from((Iterable<T>) null);
+        }
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                for (T t : source) {
+                    if (!sink.accept(t)) {
+                        return;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Filters the elements.
+     *
+     * @param predicate the condition of the elements to keep
+     * @return the query
+     */
+    public Query<T> where(Predicate<? super T> predicate) {
+        Query<T> upstream = this;
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                upstream.run(t -> !predicate.test(t) || sink.accept(t));
+            }
+        };
+    }
+
+    /**
+     * Converts the elements.
+     *
+     * @param mapper the converter
+     * @param <R>    the converted type
+     * @return the query
+     */
+    public <R> Query<R> select(Function<? super T, ? extends R> mapper) {
+        Query<T> upstream = this;
+        return new Query<R>() {
+            @Override
+            protected void run(Sink<? super R> sink) {
+                upstream.run(t -> sink.accept(mapper.apply(t)));
+            }
+        };
+    }
+
+    /**
+     * Keeps the first elements, the rest of the source is not read.
+     *
+     * @param count the count of elements to keep
+     * @return the query
+     */
+    public Query<T> take(int count) {
+        Query<T> upstream = this;
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                if (count <= 0) {
+                    return;
+                }
+                int[] taken = {0};
+                upstream.run(t -> sink.accept(t) && ++taken[0] < count);
+            }
+        };
+    }
+
+    /**
+     * Skips the first elements.
+     *
+     * @param count the count of elements to skip
+     * @return the query
+     */
+    public Query<T> skip(int count) {
+        Query<T> upstream = this;
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                int[] skipped = {0};
+                upstream.run(t -> {
+                    if (skipped[0] < count) {
+                        skipped[0]++;
+                        return true;
+                    }
+                    return sink.accept(t);
+                });
+            }
+        };
+    }
+
+    /**
+     * Removes the duplicated elements according to {@link Object#equals(Object)}, keeping the
+     * first occurrence.
+     *
+     * @return the query
+     */
+    public Query<T> distinct() {
+        Query<T> upstream = this;
+        return new Query<T>() {
+            @Override
+            protected void run(Sink<? super T> sink) {
+                Set<T> seen = new HashSet<>();
+                upstream.run(t -> !seen.add(t) || sink.accept(t));
+            }
+        };
+    }
+
+    /**
+     * Gets the first element.
+     *
+     * @return the first element, or {@code null} if none
+     */
+    @SuppressWarnings("unchecked")
+    public T first() {
+        Object[] result = {null};
+        run(t -> {
+            result[0] = t;
+            return false;
+        });
+        return (T) result[0];
+    }
+
+    /**
+     * Gets the first element matching a condition.
+     *
+     * @param predicate the condition
+     * @return the first element matched, or {@code null} if none
+     */
+    public T first(Predicate<? super T> predicate) {
+        return where(predicate).first();
+    }
+
+    /**
+     * Checks whether there is any element.
+     *
+     * @return {@code true} if any
+     */
+    public boolean any() {
+        boolean[] found = {false};
+        run(t -> {
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Checks whether any element matches a condition.
+     *
+     * @param predicate the condition
+     * @return {@code true} if any matched
+     */
+    public boolean any(Predicate<? super T> predicate) {
+        return where(predicate).any();
+    }
+
+    /**
+     * Counts the elements.
+     *
+     * @return the count
+     */
+    public int count() {
+        int[] count = {0};
+        run(t -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Collects the elements into a list.
+     *
+     * @return a new list
+     */
+    public List<T> toList() {
+        return into(new ArrayList<>());
+    }
+
+    /**
+     * Adds the elements to a collection.
+     *
+     * @param target the collection
+     * @param <C>    the collection type
+     * @return the collection
+     */
+    public <C extends Collection<? super T>> C into(C target) {
+        run(t -> {
+            target.add(t);
+            return true;
+        });
+        return target;
+    }
+
+    /**
+     * Groups the elements by a key, keeping the order of the first occurrence of each key and the
+     * order of the elements within each group.
+     *
+     * @param keySelector the selector of the key of an element
+     * @param <K>         the key type
+     * @return the groups by key
+     */
+    public <K> Map<K, List<T>> groupBy(Function<? super T, ? extends K> keySelector) {
+        Map<K, List<T>> groups = new LinkedHashMap<>();
+        run(t -> {
+            groups.computeIfAbsent(keySelector.apply(t), k -> new ArrayList<>()).add(t);
+            return true;
+        });
+        return groups;
+    }
+
+    /**
+     * Performs an action for each element in a single pass, without collecting the result.
+     *
+     * @param action the action
+     */
+    public void forEach(Consumer<? super T> action) {
+        run(t -> {
+            action.accept(t);
+            return true;
+        });
+    }
+}
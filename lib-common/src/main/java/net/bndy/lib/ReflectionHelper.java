@@ -7,6 +7,8 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.bndy.lib.introspect.BeanIntrospection;
+
 /**
  * Reflection Helper Class
  */
@@ -28,7 +30,8 @@ public class ReflectionHelper {
     }
 
     /**
-     * Gets class of T generic type.
+     * Gets class of T generic type. T is erased at runtime, so this is the erasure of T,
+     * {@code Object}; subclass {@link GenericType} to get the actual class.
      *
      * @param <T> the generic type
      * @return the class
@@ -61,21 +64,18 @@ public class ReflectionHelper {
     }
 
     /**
-     * Returns the {@code Class} object associated with the given {@link Type}
-     * depending on its fully qualified name.
+     * Returns the {@code Class} object associated with the given {@link Type}: the raw class of
+     * a parameterized type, the array class of a generic array type, or the erasure of a type
+     * variable or a wildcard, as {@link TypeResolver#getRawType(Type)}.
      *
      * @param type the {@code Type} whose {@code Class} is needed.
-     * @return the {@code Class} object for the class with the specified name.
-     * @throws ClassNotFoundException if the class cannot be located.
-     * @see #getClassName(Type)
+     * @return the {@code Class} object, or {@code null} if the type is {@code null}.
+     * @throws ClassNotFoundException never, kept for compatibility.
+     * @see TypeResolver#getRawType(Type)
      */
     public static Class<?> getClass(Type type)
         throws ClassNotFoundException {
-        String className = getClassName(type);
-        if (className == null || className.isEmpty()) {
-            return null;
-        }
-        return Class.forName(className);
+        return TypeResolver.getRawType(type);
     }
 
     /**
@@ -105,7 +105,8 @@ public class ReflectionHelper {
 
     /**
      * Returns an array of {@code Type} objects representing the actual type
-     * arguments to this object.
+     * arguments to this object, with the type variables bound through the
+     * superclasses resolved by {@link TypeResolver}.
      * If the returned value is null, then this object represents a non-parameterized
      * object.
      *
@@ -115,12 +116,12 @@ public class ReflectionHelper {
      * @see Class#getGenericSuperclass()
      */
     public static Type[] getParameterizedTypes(Object object) {
-        Type superclassType = object.getClass().getGenericSuperclass();
-        if (!ParameterizedType.class.isAssignableFrom(superclassType.getClass())) {
+        Class<?> clazz = object.getClass();
+        if (!(clazz.getGenericSuperclass() instanceof ParameterizedType)) {
             return null;
         }
 
-        return ((ParameterizedType) superclassType).getActualTypeArguments();
+        return TypeResolver.of(clazz).getTypeArguments(clazz.getSuperclass());
     }
 
     /**
@@ -241,43 +242,31 @@ public class ReflectionHelper {
     }
 
     /**
-     * Gets all fields of type clazz.
+     * Gets all fields of type clazz, the public ones including inherited ones followed by the
+     * declared ones of the class and of its superclasses, see {@link ClassMetadata}.
      *
      * @param clazz the {@code Class} object.
      * @return the list typed Field
      */
     public static List<Field> getAllFields(Class<?> clazz) {
-        List<Field> result = new ArrayList<>();
-        Field[] publicFields = clazz.getFields();
-
-        for (Field field : publicFields) {
-            if (!result.contains(field)) {
-                result.add(field);
-            }
-        }
-
-        Field[] declaredFields = clazz.getDeclaredFields();
-        for (Field field : declaredFields) {
-            if (!result.contains(field)) {
-                result.add(field);
-            }
-        }
-        return result;
+        return new ArrayList<>(ClassMetadata.of(clazz).getFields());
     }
 
     /**
-     * Gets the field by field name.
+     * Gets the field by field name. The field is shared and must not be made accessible, see
+     * {@link ClassMetadata}.
      *
      * @param name  the field name
      * @param clazz the class
      * @return the field typed {@code Field}
      */
     public static Field getField(String name, Class<?> clazz) {
-        return CollectionHelper.first(getAllFields(clazz), field -> field.getName().equals(name));
+        return ClassMetadata.of(clazz).getField(name);
     }
 
     /**
-     * Sets field value.
+     * Sets field value by the cached setters of {@link BeanMapper}, which also converts the value
+     * to the field type and uses the generated {@link BeanIntrospection} of the class if any.
      *
      * @param data       the data
      * @param fieldName  the field name
@@ -286,50 +275,50 @@ public class ReflectionHelper {
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
 	public static void setFieldValue(Object data, String fieldName, Object fieldValue) throws IllegalAccessException {
-        Field field = getField(fieldName, data.getClass());
-        if (field != null) {
-            field.setAccessible(true);
-            if (field.getType().getSuperclass() == Enum.class && fieldValue.getClass() == String.class) {
-                field.set(data, Enum.valueOf((Class<Enum>) field.getType(), fieldValue.toString()));
-            } else {
-                field.set(data, fieldValue);
+        ((BeanMapper) BeanMapper.of(data.getClass())).set(data, fieldName, fieldValue);
+    }
+
+    /**
+     * Gets field value by the generated {@link BeanIntrospection} of the class if any, otherwise
+     * by the cached {@link FieldAccessor} of the field.
+     *
+     * @param data      the data
+     * @param fieldName the field name
+     * @return the field value, boxed if primitive, or {@code null} if there is no field of the name
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object getFieldValue(Object data, String fieldName) {
+        BeanIntrospection introspection = BeanIntrospection.of(data.getClass());
+        if (introspection != null) {
+            int index = introspection.indexOf(fieldName);
+            if (index >= 0 && introspection.isReadable(index)) {
+                return introspection.get(data, index);
             }
         }
+        FieldAccessor accessor = FieldAccessor.of(data.getClass(), fieldName);
+        return accessor == null ? null : accessor.get(data);
     }
 
     /**
-     * Gets all methods of type clazz.
+     * Gets all methods of type clazz, the public ones including inherited ones followed by the
+     * declared ones of the class and of its superclasses, see {@link ClassMetadata}.
      *
      * @param clazz the {@code Class} object.
      * @return the list typed Method
      */
     public static List<Method> getAllMethods(Class<?> clazz) {
-        List<Method> result = new ArrayList<>();
-        Method[] publicMethods = clazz.getMethods();
-
-        for (Method method : publicMethods) {
-            if (!result.contains(method)) {
-                result.add(method);
-            }
-        }
-
-        Method[] declaredMethods = clazz.getDeclaredMethods();
-        for (Method method : declaredMethods) {
-            if (!result.contains(method)) {
-                result.add(method);
-            }
-        }
-        return result;
+        return new ArrayList<>(ClassMetadata.of(clazz).getMethods());
     }
 
     /**
-     * Gets the method by method name.
+     * Gets the method by method name. The method is shared and must not be made accessible, see
+     * {@link ClassMetadata}.
      *
      * @param name  the method name
      * @param clazz the class
      * @return the field typed {@code Method}
      */
     public static Method getMethod(String name, Class<?> clazz) {
-        return CollectionHelper.first(getAllMethods(clazz), method -> method.getName().equals(name));
+        return ClassMetadata.of(clazz).getMethod(name);
     }
 }
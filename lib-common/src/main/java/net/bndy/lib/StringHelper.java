@@ -15,6 +15,8 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import net.bndy.lib.primitive.IntList;
+import net.bndy.lib.primitive.LongList;
 import org.apache.commons.codec.binary.Base64;
 
 
@@ -310,16 +312,128 @@ public class StringHelper {
      *
      * @param source     the source string
      * @param separator  the separator
-     * @return  the Long list
+     * @return  the Long list, an {@link ArrayList}
      */
     public static List<Long> splitToLong(String source, String separator) {
-        List<Long> result = new ArrayList<>();
-        String[] tmp = splitWithoutWhitespace(source, separator);
-        for (String s : tmp) {
-            result.add(Long.parseLong(s));
+        return new ArrayList<>(splitToLong(source, separator, new LongList()));
+    }
+
+    /**
+     * Splits source without whitespace and parse to long values without boxing. A separator of a
+     * single character which is not a regular expression metacharacter is matched directly,
+     * otherwise the separator is a regular expression as in {@link #splitWithoutWhitespace(String, String)}.
+     *
+     * @param source     the source string
+     * @param separator  the separator
+     * @param target     the list to append the values to
+     * @return  the target list
+     * @throws NumberFormatException if an item is not a valid long
+     */
+    public static LongList splitToLong(String source, String separator, LongList target) {
+        if (!isPlainSeparator(separator)) {
+            for (String s : splitWithoutWhitespace(source, separator)) {
+                target.addLong(Long.parseLong(s));
+            }
+            return target;
+        }
+        char ch = separator.charAt(0);
+        int start = 0;
+        while (start <= source.length()) {
+            int end = source.indexOf(ch, start);
+            if (end < 0) {
+                end = source.length();
+            }
+            int[] range = trim(source, start, end);
+            if (range != null) {
+                target.addLong(parseLong(source, range[0], range[1], Long.MIN_VALUE));
+            }
+            start = end + 1;
         }
+        return target;
+    }
 
-        return result;
+    /**
+     * Splits source without whitespace and parse to int values without boxing, the same way as
+     * {@link #splitToLong(String, String, LongList)}.
+     *
+     * @param source     the source string
+     * @param separator  the separator
+     * @param target     the list to append the values to
+     * @return  the target list
+     * @throws NumberFormatException if an item is not a valid int
+     */
+    public static IntList splitToInt(String source, String separator, IntList target) {
+        if (!isPlainSeparator(separator)) {
+            for (String s : splitWithoutWhitespace(source, separator)) {
+                target.addInt(Integer.parseInt(s));
+            }
+            return target;
+        }
+        char ch = separator.charAt(0);
+        int start = 0;
+        while (start <= source.length()) {
+            int end = source.indexOf(ch, start);
+            if (end < 0) {
+                end = source.length();
+            }
+            int[] range = trim(source, start, end);
+            if (range != null) {
+                target.addInt((int) parseLong(source, range[0], range[1], Integer.MIN_VALUE));
+            }
+            start = end + 1;
+        }
+        return target;
+    }
+
+    private static boolean isPlainSeparator(String separator) {
+        return separator.length() == 1 && ".$|()[]{}^?*+\\".indexOf(separator.charAt(0)) < 0;
+    }
+
+    /**
+     * Gets the bounds of a range without its leading and trailing white spaces as {@link String#trim()},
+     * or {@code null} if blank.
+     */
+    private static int[] trim(String source, int start, int end) {
+        while (start < end && source.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start < end ? new int[] { start, end } : null;
+    }
+
+    /**
+     * Parses a decimal range as {@link Long#parseLong(String)} without a substring, within
+     * {@code [minimum, -minimum - 1]}.
+     */
+    private static long parseLong(String source, int start, int end, long minimum) {
+        boolean negative = false;
+        int i = start;
+        char first = source.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                throw new NumberFormatException("For input string: \"" + source.substring(start, end) + "\"");
+            }
+        }
+        // accumulates negatively, as the minimum has no positive counterpart
+        long limit = negative ? minimum : minimum + 1;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(source.charAt(i), 10);
+            if (digit < 0 || result < multiplyLimit) {
+                throw new NumberFormatException("For input string: \"" + source.substring(start, end) + "\"");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("For input string: \"" + source.substring(start, end) + "\"");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
     }
 
     /**
@@ -415,12 +529,6 @@ public class StringHelper {
      * @return  the instance of enum type. null if the name is not defined in enum.
      */
     public static <T extends Enum<T>> T toEnum(String name, Class<T> enumClazz) {
-        Set<T> values = EnumSet.allOf(enumClazz);
-        for(T t: values) {
-            if (t.name().equalsIgnoreCase(name)) {
-                return t;
-            }
-        }
-        return null;
+        return EnumLookup.of(enumClazz).find(name);
     }
 }
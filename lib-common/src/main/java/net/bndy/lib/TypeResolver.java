@@ -0,0 +1,432 @@
+package net.bndy.lib;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The generic supertypes of a class with their type arguments resolved, computed once and cached
+ * per class in a {@link ClassValue}, e.g. for
+ * <pre>
+ *     class UserService extends CachedService&lt;User&gt; { }
+ *     class CachedService&lt;E&gt; extends JpaService&lt;E, Long&gt; { }
+ * </pre>
+ * {@code TypeResolver.of(UserService.class).getRawTypeArgument(JpaService.class, 0)} is
+ * {@code User.class}. The type variables are followed through the superclasses and the
+ * interfaces, and the arguments are full {@link Type} trees, such as {@code List<Map<String,
+ * Long>>}, which can be passed to serializers.
+ * <p>
+ * A type variable which is not bound by the class or its supertypes, e.g. a type parameter of
+ * the class itself, stays a {@link TypeVariable}, and its raw type is the erasure of its first
+ * bound. When a supertype is extended raw, its type arguments are the erasures of its type
+ * parameters. When the same interface is reached through several paths, the first one wins:
+ * the superclass before the interfaces, in declaration order.
+ */
+public final class TypeResolver {
+
+    private static final ClassValue<TypeResolver> CACHE = new ClassValue<TypeResolver>() {
+        @Override
+        protected TypeResolver computeValue(Class<?> type) {
+            return new TypeResolver(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+    private final Map<Class<?>, Type[]> arguments = new HashMap<>();
+    private final Map<Class<?>, Class<?>[]> rawArguments = new HashMap<>();
+
+    private TypeResolver(Class<?> type) {
+        this.type = type;
+        arguments.put(type, type.getTypeParameters());
+        collect(type, false);
+        for (Map.Entry<Class<?>, Type[]> entry : arguments.entrySet()) {
+            Type[] types = entry.getValue();
+            Class<?>[] raw = new Class<?>[types.length];
+            for (int i = 0; i < types.length; i++) {
+                raw[i] = getRawType(types[i]);
+            }
+            rawArguments.put(entry.getKey(), raw);
+        }
+    }
+
+    /**
+     * Gets the resolver of a class.
+     *
+     * @param type the class
+     * @return the resolver, computed at the first call for the class
+     */
+    public static TypeResolver of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Gets the raw class of a type: the class itself, the raw type of a parameterized type, the
+     * array class of a generic array type, or the erasure of the first bound of a type variable
+     * or a wildcard.
+     *
+     * @param type the type
+     * @return the class, or {@code null} if the type is {@code null}
+     */
+    public static Class<?> getRawType(Type type) {
+        if (type == null || type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return getRawType(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component = getRawType(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return getRawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return getRawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        throw new IllegalArgumentException("Unsupported type " + type.getClass().getName() + ": " + type);
+    }
+
+    /**
+     * Gets the class.
+     *
+     * @return the class
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether a class is the class or one of its supertypes.
+     *
+     * @param supertype the supertype
+     * @return {@code true} if a supertype
+     */
+    public boolean isSubtypeOf(Class<?> supertype) {
+        return arguments.containsKey(supertype);
+    }
+
+    /**
+     * Gets the type arguments of a supertype, such as {@code [User, Long]} for
+     * {@code JpaService.class}.
+     *
+     * @param supertype the generic class or interface
+     * @return a copy of the resolved type arguments, empty if the supertype is not generic, or
+     * {@code null} if it is not a supertype
+     */
+    public Type[] getTypeArguments(Class<?> supertype) {
+        Type[] types = arguments.get(supertype);
+        return types == null ? null : types.clone();
+    }
+
+    /**
+     * Gets a type argument of a supertype.
+     *
+     * @param supertype the generic class or interface
+     * @param index     the index of the type parameter
+     * @return the resolved type argument
+     * @throws IllegalArgumentException  if the class is not a supertype
+     * @throws IndexOutOfBoundsException if the supertype has no type parameter of the index
+     */
+    public Type getTypeArgument(Class<?> supertype, int index) {
+        return argumentsOf(supertype, arguments)[index];
+    }
+
+    /**
+     * Gets the raw class of a type argument of a supertype, as {@link #getRawType(Type)}.
+     *
+     * @param supertype the generic class or interface
+     * @param index     the index of the type parameter
+     * @return the class
+     * @throws IllegalArgumentException  if the class is not a supertype
+     * @throws IndexOutOfBoundsException if the supertype has no type parameter of the index
+     */
+    public Class<?> getRawTypeArgument(Class<?> supertype, int index) {
+        return argumentsOf(supertype, rawArguments)[index];
+    }
+
+    /**
+     * Gets a supertype with its resolved type arguments, such as
+     * {@code JpaService<User, Long>}.
+     *
+     * @param supertype the class or interface
+     * @return the parameterized type, the class itself if not generic, or {@code null} if it is
+     * not a supertype
+     */
+    public Type getSupertype(Class<?> supertype) {
+        Type[] types = arguments.get(supertype);
+        if (types == null || types.length == 0) {
+            return types == null ? null : supertype;
+        }
+        return new ParameterizedTypeImpl(supertype.getDeclaringClass(), supertype, types.clone());
+    }
+
+    /**
+     * Resolves the type variables of a type declared in the class or its supertypes, such as the
+     * generic type of an inherited field or the generic return type of an inherited method.
+     *
+     * @param type the type
+     * @return the type with the type variables bound by the class substituted
+     */
+    public Type resolve(Type type) {
+        if (type instanceof Class || bindings.isEmpty()) {
+            return type;
+        }
+        return substitute(type);
+    }
+
+    private void collect(Class<?> c, boolean raw) {
+        Type superclass = c.getGenericSuperclass();
+        if (superclass != null) {
+            bind(raw ? c.getSuperclass() : superclass);
+        }
+        Type[] interfaces = raw ? c.getInterfaces() : c.getGenericInterfaces();
+        for (Type i : interfaces) {
+            bind(i);
+        }
+    }
+
+    private void bind(Type supertype) {
+        Class<?> raw = getRawType(supertype);
+        if (arguments.containsKey(raw)) {
+            return;
+        }
+        TypeVariable<?>[] parameters = raw.getTypeParameters();
+        Type[] types = new Type[parameters.length];
+        boolean parameterized = supertype instanceof ParameterizedType;
+        for (int i = 0; i < parameters.length; i++) {
+            types[i] = parameterized
+                ? substitute(((ParameterizedType) supertype).getActualTypeArguments()[i])
+                : getRawType(parameters[i]);
+            bindings.put(parameters[i], types[i]);
+        }
+        arguments.put(raw, types);
+        collect(raw, !parameterized && parameters.length > 0);
+    }
+
+    private Type substitute(Type type) {
+        if (type instanceof TypeVariable) {
+            Type bound = bindings.get(type);
+            return bound == null ? type : bound;
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) type;
+            Type owner = p.getOwnerType() == null ? null : substitute(p.getOwnerType());
+            Type[] args = substitute(p.getActualTypeArguments());
+            if (owner == p.getOwnerType() && args == p.getActualTypeArguments()) {
+                return type;
+            }
+            return new ParameterizedTypeImpl(owner, p.getRawType(), args);
+        }
+        if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Type resolved = substitute(component);
+            if (resolved == component) {
+                return type;
+            }
+            return resolved instanceof Class
+                ? Array.newInstance((Class<?>) resolved, 0).getClass()
+                : new GenericArrayTypeImpl(resolved);
+        }
+        if (type instanceof WildcardType) {
+            WildcardType w = (WildcardType) type;
+            Type[] upper = substitute(w.getUpperBounds());
+            Type[] lower = substitute(w.getLowerBounds());
+            if (upper == w.getUpperBounds() && lower == w.getLowerBounds()) {
+                return type;
+            }
+            return new WildcardTypeImpl(upper, lower);
+        }
+        return type;
+    }
+
+    /**
+     * Substitutes the types of an array.
+     *
+     * @return the same array if no type changed, otherwise a new array
+     */
+    private Type[] substitute(Type[] types) {
+        Type[] result = types;
+        for (int i = 0; i < types.length; i++) {
+            Type resolved = substitute(types[i]);
+            if (resolved != types[i]) {
+                if (result == types) {
+                    result = types.clone();
+                }
+                result[i] = resolved;
+            }
+        }
+        return result;
+    }
+
+    private <V> V argumentsOf(Class<?> supertype, Map<Class<?>, V> map) {
+        V result = map.get(supertype);
+        if (result == null) {
+            throw new IllegalArgumentException(supertype.getName() + " is not a supertype of " + type.getName());
+        }
+        return result;
+    }
+
+    private static String typeNames(Type[] types, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(types[i].getTypeName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A parameterized type equal to the ones of the JDK with the same owner, raw type and
+     * arguments.
+     */
+    private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+        private final Type ownerType;
+        private final Type rawType;
+        private final Type[] actualTypeArguments;
+
+        ParameterizedTypeImpl(Type ownerType, Type rawType, Type[] actualTypeArguments) {
+            this.ownerType = ownerType;
+            this.rawType = rawType;
+            this.actualTypeArguments = actualTypeArguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType other = (ParameterizedType) o;
+            return Objects.equals(ownerType, other.getOwnerType())
+                && Objects.equals(rawType, other.getRawType())
+                && Arrays.equals(actualTypeArguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ Objects.hashCode(rawType);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            if (ownerType != null) {
+                sb.append(ownerType.getTypeName()).append('$').append(((Class<?>) rawType).getSimpleName());
+            } else {
+                sb.append(rawType.getTypeName());
+            }
+            if (actualTypeArguments.length > 0) {
+                sb.append('<').append(typeNames(actualTypeArguments, ", ")).append('>');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A generic array type equal to the ones of the JDK with the same component type.
+     */
+    private static final class GenericArrayTypeImpl implements GenericArrayType {
+
+        private final Type componentType;
+
+        GenericArrayTypeImpl(Type componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override
+        public Type getGenericComponentType() {
+            return componentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GenericArrayType
+                && Objects.equals(componentType, ((GenericArrayType) o).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(componentType);
+        }
+
+        @Override
+        public String toString() {
+            return componentType.getTypeName() + "[]";
+        }
+    }
+
+    /**
+     * A wildcard type equal to the ones of the JDK with the same bounds.
+     */
+    private static final class WildcardTypeImpl implements WildcardType {
+
+        private final Type[] upperBounds;
+        private final Type[] lowerBounds;
+
+        WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+            this.upperBounds = upperBounds;
+            this.lowerBounds = lowerBounds;
+        }
+
+        @Override
+        public Type[] getUpperBounds() {
+            return upperBounds.clone();
+        }
+
+        @Override
+        public Type[] getLowerBounds() {
+            return lowerBounds.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WildcardType)) {
+                return false;
+            }
+            WildcardType other = (WildcardType) o;
+            return Arrays.equals(upperBounds, other.getUpperBounds()) && Arrays.equals(lowerBounds, other.getLowerBounds());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(upperBounds) ^ Arrays.hashCode(lowerBounds);
+        }
+
+        @Override
+        public String toString() {
+            if (lowerBounds.length > 0) {
+                return "? super " + typeNames(lowerBounds, " & ");
+            }
+            if (upperBounds.length == 0 || upperBounds[0] == Object.class) {
+                return "?";
+            }
+            return "? extends " + typeNames(upperBounds, " & ");
+        }
+    }
+}
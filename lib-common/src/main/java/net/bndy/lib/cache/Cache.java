@@ -1,132 +1,175 @@
 package net.bndy.lib.cache;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map.Entry;
-
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Static access to named cache regions, each a {@link CacheEngine} with its own options, policy,
+ * statistics and lifecycle, so that a busy region can't evict the entries of another one. The
+ * static methods use the {@value #DEFAULT_REGION} region.
+ * <p>
+ * Regions created without options hold at most {@value #DEFAULT_MAXIMUM_SIZE} entries, which
+ * can be changed with the system property {@code net.bndy.lib.cache.maximumSize}.
+ */
 public class Cache {
 
-    private static HashMap<String, CacheObject> cacheMap = new HashMap<String, CacheObject>();
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+    public static final String DEFAULT_REGION = "default";
+
+    private static final ConcurrentHashMap<String, CacheEngine> regions = new ConcurrentHashMap<>();
+    private static final CacheEngine defaultEngine = region(DEFAULT_REGION);
 
-    public synchronized static void put(String key, Object value) {
-        CacheObject cache = new CacheObject(key, value, -1);
-        putCacheObject(cache);
+    /**
+     * Gets the engine which backs the static methods.
+     *
+     * @return the default engine
+     */
+    public static CacheEngine getEngine() {
+        return defaultEngine;
     }
 
-    public synchronized static void put(String key, Object value, long duration) {
-        CacheObject cache = new CacheObject(key, value, duration);
-        putCacheObject(cache);
+    /**
+     * Gets a region, creating it with the default options if absent.
+     *
+     * @param name the name of the region
+     * @return the region
+     */
+    public static CacheEngine region(String name) {
+        return regions.computeIfAbsent(name, n -> new CacheEngine(defaultOptions()));
     }
 
-    public static Boolean getBoolean(String key) {
-        CacheObject cache = getCacheObject(key);
-        if (cache != null) {
-            return cache.getValue() == null ? null : (Boolean) cache.getValue();
+    /**
+     * Gets a region, creating it with the specified options if absent. The options are ignored
+     * if the region already exists, so configure regions at startup before they are used.
+     *
+     * @param name    the name of the region
+     * @param options the options of the region
+     * @return the region
+     */
+    public static CacheEngine region(String name, CacheOptions options) {
+        return regions.computeIfAbsent(name, n -> new CacheEngine(options));
+    }
+
+    /**
+     * Gets the names of the existing regions.
+     *
+     * @return the names
+     */
+    public static Set<String> getRegionNames() {
+        return Collections.unmodifiableSet(new HashSet<>(regions.keySet()));
+    }
+
+    /**
+     * Removes a region. Its entries are removed, on this node only, and it is
+     * {@linkplain CacheEngine#close() closed}, which detaches it from its invalidation transport
+     * and unregisters its MBeans. Callers holding the engine can keep using it locally, but
+     * {@link #region(String)} creates a new one.
+     *
+     * @param name the name of the region
+     * @return {@code true} if the region existed
+     * @throws IllegalArgumentException if the name is {@value #DEFAULT_REGION}
+     */
+    public static boolean removeRegion(String name) {
+        if (DEFAULT_REGION.equals(name)) {
+            throw new IllegalArgumentException("The default region can't be removed.");
+        }
+        CacheEngine engine = regions.remove(name);
+        if (engine == null) {
+            return false;
         }
-        return null;
+        engine.close();
+        engine.clearLocally();
+        return true;
+    }
+
+    public static void put(String key, Object value) {
+        defaultEngine.put(key, value);
+    }
+
+    public static void put(String key, Object value, long duration) {
+        defaultEngine.put(key, value, duration);
+    }
+
+    public static void put(String key, Object value, long duration, String... tags) {
+        defaultEngine.put(key, value, duration, tags);
+    }
+
+    public static Boolean getBoolean(String key) {
+        return defaultEngine.getBoolean(key);
     }
 
     public static Integer getInteger(String key) {
-        CacheObject cache = getCacheObject(key);
-        if (cache != null) {
-            return cache.getValue() == null ? null : (Integer) cache.getValue();
-        }
-        return null;
+        return defaultEngine.getInteger(key);
     }
 
     public static Long getLong(String key) {
-        CacheObject cache = getCacheObject(key);
-        if (cache != null) {
-            return cache.getValue() == null ? null : (Long) cache.getValue();
-        }
-        return null;
+        return defaultEngine.getLong(key);
     }
 
     public static String getString(String key) {
-        CacheObject cache = getCacheObject(key);
-        if (cache != null) {
-            return cache.getValue() == null ? null : cache.getValue().toString();
-        }
-        return null;
+        return defaultEngine.getString(key);
     }
 
-    @SuppressWarnings("unchecked")
-	public static <T> T get(String key) {
-        CacheObject cache = getCacheObject(key);
-        if (cache != null) {
-            return cache.getValue() == null ? null : (T) cache.getValue();
-        }
-        return null;
+    public static <T> T get(String key) {
+        return defaultEngine.get(key);
     }
 
-    public synchronized static void remove(String key) {
-        cacheMap.remove(key);
+    public static <T> T get(String key, Function<String, ? extends T> loader) {
+        return defaultEngine.get(key, loader);
     }
 
-    public synchronized static void clear() {
-        cacheMap.clear();
+    public static <T> T get(String key, Function<String, ? extends T> loader, long duration) {
+        return defaultEngine.get(key, loader, duration);
     }
 
-    public synchronized static int clearKeyStartsWith(String keyPrefix) {
-        int result = 0;
-        Iterator<Entry<String, CacheObject>> iterator = cacheMap.entrySet().iterator();
-        String currentKey;
-        while (iterator.hasNext()) {
-			Entry<?, ?> entry = (Entry<?, ?>) iterator.next();
-            currentKey = (String) entry.getKey();
-            if (currentKey.indexOf(keyPrefix) == 0) {
-                cacheMap.remove(currentKey);
-                result++;
-            }
-        }
-        return result;
+    public static <T> Map<String, T> getAll(Collection<String> keys) {
+        return defaultEngine.getAll(keys);
     }
 
+    public static <T> Map<String, T> getAll(Collection<String> keys, Function<Set<String>, ? extends Map<String, ? extends T>> loader, long duration) {
+        return defaultEngine.getAll(keys, loader, duration);
+    }
 
-    public static int getSize() {
-        Iterator<Entry<String, CacheObject>> iterator = cacheMap.entrySet().iterator();
-        String currentKey;
-        while (iterator.hasNext()) {
-            Entry<?, ?> entry = iterator.next();
-            currentKey = (String) entry.getKey();
-            getCacheObject(currentKey);
-        }
-        return cacheMap.size();
+    public static void remove(String key) {
+        defaultEngine.remove(key);
     }
 
-    public static int getSizeKeyStartsWith(String keyPrefix) {
-        int result = 0;
-        Iterator<Entry<String, CacheObject>> iterator = cacheMap.entrySet().iterator();
-        String currentKey;
-        CacheObject currentValue;
-        while (iterator.hasNext()) {
-            Entry<?, ?> entry = (Entry<?, ?>) iterator.next();
-            currentKey = (String) entry.getKey();
-            currentValue = getCacheObject(currentKey);
-            if (currentValue != null) {
-                if (currentKey.indexOf(keyPrefix) == 0 && !currentValue.isExpired()) {
-                    result++;
-                }
-            }
-        }
-        return result;
+    public static void putAll(Map<String, ?> values, long duration) {
+        defaultEngine.putAll(values, duration);
     }
 
+    public static int removeAll(Collection<String> keys) {
+        return defaultEngine.removeAll(keys);
+    }
 
-    private synchronized static void putCacheObject(CacheObject cache) {
-        cacheMap.put(cache.getKey(), cache);
+    public static void clear() {
+        defaultEngine.clear();
     }
 
-    private synchronized static CacheObject getCacheObject(String key) {
-        CacheObject cache = cacheMap.get(key);
-        if (cache != null) {
-            if (!cache.isExpired()) {
-                return cache;
-            } else {
-                remove(key);
-            }
-        }
-        return null;
+    public static int invalidateTag(String tag) {
+        return defaultEngine.invalidateTag(tag);
     }
 
+    public static int clearKeyStartsWith(String keyPrefix) {
+        return defaultEngine.clearKeyStartsWith(keyPrefix);
+    }
+
+    public static int getSize() {
+        return defaultEngine.getSize();
+    }
+
+    public static int getSizeKeyStartsWith(String keyPrefix) {
+        return defaultEngine.getSizeKeyStartsWith(keyPrefix);
+    }
+
+    private static CacheOptions defaultOptions() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(Long.getLong("net.bndy.lib.cache.maximumSize", DEFAULT_MAXIMUM_SIZE));
+        return options;
+    }
 }
@@ -0,0 +1,1215 @@
+package net.bndy.lib.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * An instantiable, thread-safe cache.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so reads never block and writes only contend
+ * with writers of the same hash bin. Each instance is independent, which allows several caches
+ * per JVM; {@link Cache} is a static facade over a default instance.
+ * <p>
+ * Entries with a duration are expired by a {@link TimerWheel}, and when a maximum size is
+ * configured a {@link TinyLfuPolicy} decides which entries to evict. Both are maintained under
+ * an eviction lock which no caller ever waits for: writes queue the changed key and reads are
+ * recorded into a lossy {@link ReadBuffer}, and whoever gets the lock replays them in batches.
+ * <p>
+ * Keys are also kept in a sorted skip list, so prefix operations only visit the keys which
+ * share the prefix instead of every key in the cache.
+ * <p>
+ * With an off-heap byte budget, serializable entries evicted by size are demoted to an
+ * {@link OffHeapStore} and promoted back to the heap on their next read.
+ * <p>
+ * Loads through {@link #get(String, Function, long)} and {@link #getAll(Collection, Function, long)}
+ * are coalesced: concurrent misses of the same key wait for the one load in flight instead of
+ * all hitting the backend. With a refresh age configured, loaded values older than that are
+ * reloaded in the background while reads keep getting the current value.
+ * <p>
+ * Statistics are recorded into striped counters when enabled, and can be polled with
+ * {@link #getStats()} or through JMX after {@link #registerMBean(String)}.
+ * <p>
+ * With an {@link InvalidationTransport}, values put or removed explicitly are invalidated on the
+ * other nodes of the transport too. Loaded values are not, as every node loads them from the
+ * same source.
+ */
+public class CacheEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(CacheEngine.class.getName());
+
+    private final ConcurrentHashMap<String, CacheObject> cacheMap;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> loadings = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ConcurrentSkipListSet<String> keyIndex = new ConcurrentSkipListSet<>();
+    private final HashMap<String, Set<String>> tagIndex = new HashMap<>();
+    private final HashMap<String, String[]> indexedTags = new HashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final TimerWheel timerWheel;
+    private final TinyLfuPolicy policy;
+    private final Weigher weigher;
+    private final ReadBuffer readBuffer;
+    private final OffHeapStore offHeapStore;
+    private final long defaultDuration;
+    private final long refreshAfterWrite;
+    private final Executor refreshExecutor;
+    private final BiConsumer<String, RuntimeException> refreshFailureHandler;
+    private final StatsCounter stats;
+    private final InvalidationBus invalidationBus;
+    private final RemovalDispatcher removalDispatcher;
+    private final Set<ObjectName> mbeanNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates an unbounded empty cache.
+     */
+    public CacheEngine() {
+        this(new CacheOptions());
+    }
+
+    /**
+     * Creates an unbounded empty cache sized for the expected number of entries.
+     *
+     * @param initialCapacity the expected number of entries
+     */
+    public CacheEngine(int initialCapacity) {
+        this(newOptions(initialCapacity));
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param options the options
+     */
+    public CacheEngine(CacheOptions options) {
+        this.cacheMap = new ConcurrentHashMap<>(options.getInitialCapacity());
+        this.timerWheel = new TimerWheel(this::expire);
+        this.stats = new StatsCounter(options.isRecordStats());
+        this.removalDispatcher = options.getRemovalListener() != null
+            ? new RemovalDispatcher(options.getRemovalListener(), options.getRemovalExecutor(),
+                options.getRemovalQueueCapacity(), options.getRemovalOverflowPolicy())
+            : null;
+        this.invalidationBus = options.getInvalidationTransport() != null
+            ? new InvalidationBus(options.getInvalidationTransport(), this::invalidate)
+            : null;
+        this.defaultDuration = options.getDefaultDuration();
+        this.refreshAfterWrite = options.getRefreshAfterWrite();
+        this.refreshExecutor = options.getRefreshExecutor() != null
+            ? options.getRefreshExecutor()
+            : DefaultRefreshExecutor.INSTANCE;
+        this.refreshFailureHandler = options.getRefreshFailureHandler() != null
+            ? options.getRefreshFailureHandler()
+            : (key, e) -> LOGGER.log(Level.WARNING, "Failed to refresh cache key " + key, e);
+        if (options.getMaximumSize() > 0 && options.getMaximumWeight() > 0) {
+            throw new IllegalArgumentException("Either maximum size or maximum weight can be set, not both.");
+        }
+        this.weigher = options.getMaximumWeight() > 0
+            ? (options.getWeigher() != null ? options.getWeigher() : new SizeEstimator())
+            : null;
+        if (options.getMaximumSize() > 0 || options.getMaximumWeight() > 0) {
+            this.policy = options.getMaximumWeight() > 0
+                ? new TinyLfuPolicy(options.getMaximumWeight(), true, this::evict)
+                : new TinyLfuPolicy(options.getMaximumSize(), false, this::evict);
+            this.readBuffer = new ReadBuffer();
+            this.offHeapStore = options.getOffHeapMaximumBytes() > 0
+                ? new OffHeapStore(options.getOffHeapMaximumBytes(), options.getOffHeapSlabBytes(),
+                    key -> {
+                        onRemoval(key, null, RemovalCause.SIZE);
+                        // let the maintenance drop the key from the tag index
+                        writeBuffer.offer(key);
+                    })
+                : null;
+        } else {
+            this.policy = null;
+            this.readBuffer = null;
+            this.offHeapStore = null;
+        }
+        // last, so that no invalidation reaches a partially constructed cache
+        if (invalidationBus != null) {
+            invalidationBus.start();
+        }
+    }
+
+    /**
+     * Puts a value which expires after the default duration, never by default.
+     *
+     * @param key   the key
+     * @param value the value
+     * @see CacheOptions#setDefaultDuration(long)
+     */
+    public void put(String key, Object value) {
+        put(key, value, defaultDuration);
+    }
+
+    /**
+     * Puts a value which expires after the specified duration.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param duration the duration in milliseconds, never expires if less than or equal to 0
+     */
+    public void put(String key, Object value, long duration) {
+        write(new CacheObject(key, value, duration));
+        broadcast(Invalidation.key(key));
+    }
+
+    /**
+     * Puts a tagged value which expires after the specified duration, see {@link #invalidateTag(String)}.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param duration the duration in milliseconds, never expires if less than or equal to 0
+     * @param tags     the tags, such as the entities the value depends on
+     */
+    public void put(String key, Object value, long duration, String... tags) {
+        CacheObject cache = new CacheObject(key, value, duration);
+        cache.setTags(tags);
+        write(cache);
+        broadcast(Invalidation.key(key));
+    }
+
+    /**
+     * Puts a value unless the key is already mapped to a value which is not expired.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param duration the duration in milliseconds, never expires if less than or equal to 0
+     * @return {@code true} if the value was put
+     */
+    public boolean putIfAbsent(String key, Object value, long duration) {
+        return putIfAbsent(key, value, duration, (String[]) null);
+    }
+
+    /**
+     * Puts a tagged value unless the key is already mapped to a value which is not expired.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param duration the duration in milliseconds, never expires if less than or equal to 0
+     * @param tags     the tags
+     * @return {@code true} if the value was put
+     */
+    public boolean putIfAbsent(String key, Object value, long duration, String... tags) {
+        if (restore(key, value, duration, tags)) {
+            broadcast(Invalidation.key(key));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts a value like {@link #putIfAbsent(String, Object, long, String...)} without
+     * invalidating it on the other nodes, used to restore snapshots.
+     */
+    boolean restore(String key, Object value, long duration, String[] tags) {
+        CacheObject cache = new CacheObject(key, value, duration);
+        cache.setTags(tags);
+        weigh(cache);
+        while (true) {
+            CacheObject existing = cacheMap.putIfAbsent(key, cache);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired()) {
+                return false;
+            }
+            if (cacheMap.replace(key, existing, cache)) {
+                onRemoval(existing, RemovalCause.EXPIRED);
+                break;
+            }
+        }
+        if (offHeapStore != null && offHeapStore.discard(key)) {
+            onRemoval(key, null, RemovalCause.REPLACED);
+        }
+        afterChange(key);
+        return true;
+    }
+
+    /**
+     * Gets a Boolean value.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if absent or expired
+     */
+    public Boolean getBoolean(String key) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            return cache.getValue() == null ? null : (Boolean) cache.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Gets an Integer value.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if absent or expired
+     */
+    public Integer getInteger(String key) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            return cache.getValue() == null ? null : (Integer) cache.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Gets a Long value.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if absent or expired
+     */
+    public Long getLong(String key) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            return cache.getValue() == null ? null : (Long) cache.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the string representation of a value.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if absent or expired
+     */
+    public String getString(String key) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            return cache.getValue() == null ? null : cache.getValue().toString();
+        }
+        return null;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @param <T> the value type
+     * @return the value, or {@code null} if absent or expired
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            return cache.getValue() == null ? null : (T) cache.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Gets a value, loading and putting it if absent. Concurrent callers missing the same key
+     * share a single call of the loader. The loaded value expires after the default duration.
+     *
+     * @param key    the key
+     * @param loader the loader of the missing value, a {@code null} result is not cached
+     * @param <T>    the value type
+     * @return the value
+     */
+    public <T> T get(String key, Function<String, ? extends T> loader) {
+        return get(key, loader, defaultDuration);
+    }
+
+    /**
+     * Gets a value, loading and putting it if absent. Concurrent callers missing the same key
+     * share a single call of the loader.
+     *
+     * @param key      the key
+     * @param loader   the loader of the missing value, a {@code null} result is not cached
+     * @param duration the duration in milliseconds of the loaded value, never expires if less than or equal to 0
+     * @param <T>      the value type
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Function<String, ? extends T> loader, long duration) {
+        CacheObject cache = getCacheObject(key);
+        if (cache != null) {
+            // checked for expiry by the lookup, a second check could turn the hit into null
+            return (T) cache.getOriginValue();
+        }
+
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loadings.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return (T) join(inFlight);
+        }
+        long start = System.nanoTime();
+        try {
+            // the previous load may have completed between the miss and the registration
+            cache = getCacheObject(key, System.currentTimeMillis(), false);
+            Object value;
+            if (cache != null) {
+                value = cache.getOriginValue();
+            } else {
+                value = loader.apply(key);
+                recordLoad(value != null, start);
+                if (value != null) {
+                    putLoaded(key, value, duration, loader);
+                }
+            }
+            loading.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadings.remove(key, loading);
+        }
+    }
+
+    private void putLoaded(String key, Object value, long duration, Function<String, ?> loader) {
+        CacheObject cache = new CacheObject(key, value, duration);
+        cache.setLoader(loader);
+        write(cache);
+    }
+
+    /**
+     * Gets the values which are present, reading the clock once for the whole batch.
+     *
+     * @param keys the keys
+     * @param <T>  the value type
+     * @return the values in the order of the keys, without absent or expired ones
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys) {
+        Map<String, T> result = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        int hits = 0;
+        for (String key : keys) {
+            CacheObject cache = getCacheObject(key, now, false);
+            if (cache != null) {
+                result.put(key, (T) cache.getOriginValue());
+                hits++;
+            }
+        }
+        stats.recordHits(hits);
+        stats.recordMisses(keys.size() - hits);
+        return result;
+    }
+
+    /**
+     * Puts values which expire after the specified duration. All of them are stamped with the
+     * same time, and the maintenance runs once for the whole batch.
+     *
+     * @param values   the values by key
+     * @param duration the duration in milliseconds, never expires if less than or equal to 0
+     */
+    public void putAll(Map<String, ?> values, long duration) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            store(new CacheObject(entry.getKey(), entry.getValue(), duration, now));
+        }
+        drainBuffers();
+        for (String key : values.keySet()) {
+            broadcast(Invalidation.key(key));
+        }
+    }
+
+    /**
+     * Removes values, running the maintenance once for the whole batch.
+     *
+     * @param keys the keys
+     * @return the count of removed values
+     */
+    public int removeAll(Collection<String> keys) {
+        int result = 0;
+        for (String key : keys) {
+            if (offHeapStore != null && offHeapStore.discard(key)) {
+                onRemoval(key, null, RemovalCause.EXPLICIT);
+                result++;
+            }
+            CacheObject removed = cacheMap.remove(key);
+            if (removed != null) {
+                onRemoval(removed, RemovalCause.EXPLICIT);
+                writeBuffer.offer(key);
+                result++;
+            }
+        }
+        drainBuffers();
+        for (String key : keys) {
+            broadcast(Invalidation.key(key));
+        }
+        return result;
+    }
+
+    /**
+     * Gets values, loading all missing ones with a single call of the bulk loader. Keys which
+     * are already being loaded by other callers are waited for instead of loaded again.
+     *
+     * @param keys     the keys
+     * @param loader   the loader receiving the missing keys and returning the found values
+     * @param duration the duration in milliseconds of the loaded values, never expires if less than or equal to 0
+     * @param <T>      the value type
+     * @return the values in the order of the keys, without keys whose value is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys, Function<Set<String>, ? extends Map<String, ? extends T>> loader, long duration) {
+        Map<String, Object> found = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> claimed = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> waiting = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        int misses = 0;
+        for (String key : keys) {
+            CacheObject cache = getCacheObject(key, now, false);
+            if (cache != null) {
+                found.put(key, cache.getOriginValue());
+                continue;
+            }
+            misses++;
+            if (!claimed.containsKey(key) && !waiting.containsKey(key)) {
+                CompletableFuture<Object> loading = new CompletableFuture<>();
+                CompletableFuture<Object> inFlight = loadings.putIfAbsent(key, loading);
+                if (inFlight == null) {
+                    claimed.put(key, loading);
+                } else {
+                    waiting.put(key, inFlight);
+                }
+            }
+        }
+        stats.recordHits(keys.size() - misses);
+        stats.recordMisses(misses);
+
+        if (!claimed.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                Map<String, ? extends T> loaded = loader.apply(Collections.unmodifiableSet(claimed.keySet()));
+                recordLoad(loaded != null, start);
+                Function<String, ?> singleLoader = key -> {
+                    Map<String, ? extends T> reloaded = loader.apply(Collections.singleton(key));
+                    return reloaded == null ? null : reloaded.get(key);
+                };
+                long loadedMillis = System.currentTimeMillis();
+                for (String key : claimed.keySet()) {
+                    Object value = loaded == null ? null : loaded.get(key);
+                    if (value != null) {
+                        CacheObject cache = new CacheObject(key, value, duration, loadedMillis);
+                        cache.setLoader(singleLoader);
+                        store(cache);
+                    }
+                    found.put(key, value);
+                }
+                drainBuffers();
+                for (Map.Entry<String, CompletableFuture<Object>> entry : claimed.entrySet()) {
+                    entry.getValue().complete(found.get(entry.getKey()));
+                }
+            } catch (RuntimeException | Error e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                for (CompletableFuture<Object> loading : claimed.values()) {
+                    loading.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                for (Map.Entry<String, CompletableFuture<Object>> entry : claimed.entrySet()) {
+                    loadings.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<Object>> entry : waiting.entrySet()) {
+            found.put(entry.getKey(), join(entry.getValue()));
+        }
+
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            Object value = found.get(key);
+            if (value != null) {
+                result.put(key, (T) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     */
+    public void remove(String key) {
+        removeKey(key);
+        broadcast(Invalidation.key(key));
+    }
+
+    private void removeKey(String key) {
+        if (offHeapStore != null && offHeapStore.discard(key)) {
+            onRemoval(key, null, RemovalCause.EXPLICIT);
+        }
+        CacheObject removed = cacheMap.remove(key);
+        if (removed != null) {
+            onRemoval(removed, RemovalCause.EXPLICIT);
+            afterChange(key);
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        removeEverything();
+        broadcast(Invalidation.all());
+    }
+
+    private void removeEverything() {
+        evictionLock.lock();
+        try {
+            for (CacheObject cache : cacheMap.values()) {
+                if (cacheMap.remove(cache.getKey(), cache)) {
+                    onRemoval(cache, RemovalCause.EXPLICIT);
+                    writeBuffer.offer(cache.getKey());
+                }
+            }
+            if (offHeapStore != null) {
+                for (String key : offHeapStore.clear()) {
+                    onRemoval(key, null, RemovalCause.EXPLICIT);
+                }
+            }
+            maintenance();
+            // keys which were only cached off the heap
+            for (String key : new ArrayList<>(indexedTags.keySet())) {
+                updateTags(key, cacheMap.get(key));
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all values whose key starts with the prefix.
+     *
+     * @param keyPrefix the key prefix
+     * @return the count of removed values
+     */
+    public int clearKeyStartsWith(String keyPrefix) {
+        int result = removeKeyStartsWith(keyPrefix);
+        broadcast(Invalidation.prefix(keyPrefix));
+        return result;
+    }
+
+    private int removeKeyStartsWith(String keyPrefix) {
+        cleanUp();
+        int result = 0;
+        for (String key : keyIndex.tailSet(keyPrefix)) {
+            if (!key.startsWith(keyPrefix)) {
+                break;
+            }
+            CacheObject removed = cacheMap.remove(key);
+            if (removed != null) {
+                onRemoval(removed, RemovalCause.EXPLICIT);
+                writeBuffer.offer(key);
+                result++;
+            }
+        }
+        if (offHeapStore != null) {
+            for (String key : offHeapStore.removeKeyStartsWith(keyPrefix)) {
+                onRemoval(key, null, RemovalCause.EXPLICIT);
+                writeBuffer.offer(key);
+                result++;
+            }
+        }
+        drainBuffers();
+        return result;
+    }
+
+    /**
+     * Removes the values tagged with a tag, including the ones in the off-heap tier. The tag
+     * index maps each tag to its keys, so this takes time proportional to the count of tagged
+     * values.
+     *
+     * @param tag the tag
+     * @return the count of removed values
+     */
+    public int invalidateTag(String tag) {
+        int result = removeTag(tag);
+        broadcast(Invalidation.tag(tag));
+        return result;
+    }
+
+    private int removeTag(String tag) {
+        List<String> keys;
+        evictionLock.lock();
+        try {
+            maintenance();
+            Set<String> tagged = tagIndex.get(tag);
+            if (tagged == null) {
+                return 0;
+            }
+            keys = new ArrayList<>(tagged);
+        } finally {
+            evictionLock.unlock();
+        }
+        int result = 0;
+        for (String key : keys) {
+            CacheObject cache = cacheMap.get(key);
+            // the key may have been put again without the tag in the meantime
+            if (cache != null && cache.hasTag(tag) && cacheMap.remove(key, cache)) {
+                onRemoval(cache, RemovalCause.EXPLICIT);
+                result++;
+            } else if (cache == null && offHeapStore != null && offHeapStore.discard(key)) {
+                onRemoval(key, null, RemovalCause.EXPLICIT);
+                result++;
+            }
+            writeBuffer.offer(key);
+        }
+        drainBuffers();
+        return result;
+    }
+
+    /**
+     * Gets the count of values which are not expired. Values demoted to the off-heap tier are
+     * not included, see {@link #getOffHeapSize()}.
+     *
+     * @return the count
+     */
+    public int getSize() {
+        cleanUp();
+        return cacheMap.size();
+    }
+
+    /**
+     * Gets the total weight of the values on the heap, see {@link CacheOptions#setMaximumWeight(long)}.
+     * Without a maximum weight every value weighs 1. It never waits for the eviction lock, so
+     * the writes of other threads whose maintenance is still pending may not be counted yet.
+     *
+     * @return the weight
+     */
+    public long getWeightedSize() {
+        if (policy == null) {
+            return getSize();
+        }
+        drainBuffers();
+        return policy.size();
+    }
+
+    /**
+     * Gets the weight of the values on the heap as last maintained, without any locking.
+     */
+    long weightedSizeNow() {
+        return policy == null ? cacheMap.size() : policy.size();
+    }
+
+    /**
+     * Gets the count of entries on the heap, which may include expired ones, without any locking.
+     */
+    long sizeNow() {
+        return cacheMap.size();
+    }
+
+    StatsCounter statsCounter() {
+        return stats;
+    }
+
+    long droppedRemovalNotificationCount() {
+        return removalDispatcher != null ? removalDispatcher.getDroppedCount() : 0;
+    }
+
+    /**
+     * Gets the count of values which are not expired and whose key starts with the prefix.
+     * Values demoted to the off-heap tier are not included.
+     *
+     * @param keyPrefix the key prefix
+     * @return the count
+     */
+    public int getSizeKeyStartsWith(String keyPrefix) {
+        cleanUp();
+        int result = 0;
+        for (String key : keyIndex.tailSet(keyPrefix)) {
+            if (!key.startsWith(keyPrefix)) {
+                break;
+            }
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the count of values in the off-heap tier. Expired values are only dropped from the
+     * tier when read or when their slab is reused, so they may still be counted.
+     *
+     * @return the count, 0 if there is no off-heap tier
+     */
+    public int getOffHeapSize() {
+        return offHeapStore == null ? 0 : offHeapStore.size();
+    }
+
+    /**
+     * Gets the bytes of direct memory allocated by the off-heap tier.
+     *
+     * @return the bytes, 0 if there is no off-heap tier
+     */
+    public long getOffHeapAllocatedBytes() {
+        return offHeapStore == null ? 0 : offHeapStore.allocatedBytes();
+    }
+
+    /**
+     * Gets a snapshot of the statistics, which are all 0 unless enabled by
+     * {@link CacheOptions#setRecordStats(boolean)}.
+     *
+     * @return the statistics
+     */
+    public CacheStats getStats() {
+        return stats.snapshot(sizeNow(), weightedSizeNow(), getOffHeapSize(), droppedRemovalNotificationCount());
+    }
+
+    /**
+     * Detaches the cache from the JVM: pending invalidations are published, then the cache
+     * neither receives nor broadcasts invalidations anymore and the transport no longer
+     * references it, and the MBeans registered by {@link #registerMBean(String)} are
+     * unregistered. The cache itself stays usable locally.
+     */
+    public void close() {
+        if (invalidationBus != null) {
+            invalidationBus.close();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : mbeanNames) {
+            try {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Failed to unregister " + objectName, e);
+            }
+            mbeanNames.remove(objectName);
+        }
+    }
+
+    /**
+     * Removes all values without invalidating them on the other nodes, used when a region is
+     * dropped from this node only.
+     */
+    void clearLocally() {
+        removeEverything();
+    }
+
+    /**
+     * Registers the statistics as an MBean in the platform MBean server.
+     *
+     * @param name the name of the cache, which becomes the {@code name} property of the MBean
+     * @return the name of the registered MBean
+     * @throws JMException if the name is invalid or already registered
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("net.bndy.lib.cache:type=Cache,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new CacheStatsBean(this), objectName);
+        mbeanNames.add(objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes expired entries and applies pending eviction work right away. It runs as part of
+     * regular reads and writes anyway, call it only to reclaim memory of an idle cache.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+        writeDemoted();
+    }
+
+    /**
+     * Gets a live view of the entries on the heap, which may include expired ones.
+     *
+     * @return the entries
+     */
+    Collection<CacheObject> entries() {
+        return cacheMap.values();
+    }
+
+    private CacheObject getCacheObject(String key) {
+        return getCacheObject(key, System.currentTimeMillis(), true);
+    }
+
+    private CacheObject getCacheObject(String key, long now, boolean recordStats) {
+        CacheObject cache = cacheMap.get(key);
+        if (cache != null) {
+            if (!cache.isExpired(now)) {
+                afterRead(cache);
+                if (refreshAfterWrite > 0 && cache.getLoader() != null && now - cache.getCachedMillis() > refreshAfterWrite) {
+                    refresh(cache);
+                }
+                if (recordStats) {
+                    stats.recordHits(1);
+                }
+                return cache;
+            }
+            removeExpired(cache);
+        }
+        cache = offHeapStore != null ? promote(key) : null;
+        if (recordStats) {
+            if (cache != null) {
+                stats.recordHits(1);
+            } else {
+                stats.recordMisses(1);
+            }
+        }
+        return cache;
+    }
+
+    private void write(CacheObject cache) {
+        store(cache);
+        drainBuffers();
+    }
+
+    /**
+     * Maps an entry and queues its key for the maintenance, which is left to the caller so that
+     * batches only run it once.
+     */
+    private void store(CacheObject cache) {
+        weigh(cache);
+        CacheObject previous = cacheMap.put(cache.getKey(), cache);
+        if (previous != null) {
+            onRemoval(previous, previous.isExpired(cache.getCachedMillis()) ? RemovalCause.EXPIRED : RemovalCause.REPLACED);
+        }
+        if (offHeapStore != null && offHeapStore.discard(cache.getKey()) && previous == null) {
+            onRemoval(cache.getKey(), null, RemovalCause.REPLACED);
+        }
+        writeBuffer.offer(cache.getKey());
+    }
+
+    /**
+     * Weighs an entry before it is mapped, on the writing thread rather than in the maintenance
+     * under the eviction lock.
+     */
+    private void weigh(CacheObject cache) {
+        if (weigher != null) {
+            cache.setWeight(Math.max(0, weigher.weigh(cache.getKey(), cache.getOriginValue())));
+        }
+    }
+
+    private void broadcast(Invalidation invalidation) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(invalidation);
+        }
+    }
+
+    /**
+     * Applies an invalidation received from another node.
+     */
+    private void invalidate(Invalidation invalidation) {
+        switch (invalidation.getType()) {
+            case KEY:
+                removeKey(invalidation.getValue());
+                break;
+            case PREFIX:
+                removeKeyStartsWith(invalidation.getValue());
+                break;
+            case TAG:
+                removeTag(invalidation.getValue());
+                break;
+            default:
+                removeEverything();
+                break;
+        }
+    }
+
+    private void recordLoad(boolean success, long start) {
+        if (success) {
+            stats.recordLoadSuccess(System.nanoTime() - start);
+        } else {
+            stats.recordLoadFailure(System.nanoTime() - start);
+        }
+    }
+
+    private void onRemoval(CacheObject cache, RemovalCause cause) {
+        onRemoval(cache.getKey(), cache.getOriginValue(), cause);
+    }
+
+    private void onRemoval(String key, Object value, RemovalCause cause) {
+        if (cause == RemovalCause.EXPLICIT) {
+            // the next load must not join a refresh which started before the removal
+            loadings.computeIfPresent(key, (k, loading) -> loading instanceof Refresh ? null : loading);
+        }
+        stats.recordRemoval(cause);
+        if (removalDispatcher != null) {
+            removalDispatcher.dispatch(new RemovalNotification(key, value, cause));
+        }
+    }
+
+    /**
+     * Reloads a value in the background unless a load of the key is in flight. The reloaded
+     * value only replaces the exact entry it was triggered by, and an explicit removal of the
+     * key drops the refresh from the loads in flight.
+     */
+    private void refresh(CacheObject cache) {
+        String key = cache.getKey();
+        CompletableFuture<Object> loading = new Refresh();
+        if (loadings.putIfAbsent(key, loading) != null) {
+            return;
+        }
+        if (cacheMap.get(key) != cache) {
+            // removed before the refresh was registered
+            loading.complete(cache.getOriginValue());
+            loadings.remove(key, loading);
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                Object value = cache.getOriginValue();
+                long start = System.nanoTime();
+                try {
+                    Object loaded = cache.getLoader().apply(key);
+                    recordLoad(loaded != null, start);
+                    if (loaded != null) {
+                        CacheObject refreshed = new CacheObject(key, loaded, cache.getDuration());
+                        refreshed.setLoader(cache.getLoader());
+                        weigh(refreshed);
+                        if (cacheMap.replace(key, cache, refreshed)) {
+                            onRemoval(cache, RemovalCause.REPLACED);
+                            afterChange(key);
+                        }
+                        value = loaded;
+                    }
+                } catch (RuntimeException e) {
+                    // keep serving the current value until it expires
+                    stats.recordLoadFailure(System.nanoTime() - start);
+                    try {
+                        refreshFailureHandler.accept(key, e);
+                    } catch (RuntimeException handlerFailure) {
+                        LOGGER.log(Level.WARNING, "Refresh failure handler failed for cache key " + key, handlerFailure);
+                    }
+                } finally {
+                    loading.complete(value);
+                    loadings.remove(key, loading);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.complete(cache.getOriginValue());
+            loadings.remove(key, loading);
+        }
+    }
+
+    private CacheObject promote(String key) {
+        CacheObject cache = offHeapStore.remove(key);
+        if (cache == null || cache.isExpired()) {
+            return null;
+        }
+        weigh(cache);
+        CacheObject existing = cacheMap.putIfAbsent(key, cache);
+        if (existing != null) {
+            return existing.isExpired() ? null : existing;
+        }
+        afterChange(key);
+        return cache;
+    }
+
+    private void removeExpired(CacheObject cache) {
+        // only drop this exact entry, a concurrent put may already have replaced it
+        if (cacheMap.remove(cache.getKey(), cache)) {
+            onRemoval(cache, RemovalCause.EXPIRED);
+            afterChange(cache.getKey());
+        }
+    }
+
+    private void afterRead(CacheObject cache) {
+        if (readBuffer != null && readBuffer.offer(cache)) {
+            drainBuffers();
+        }
+    }
+
+    private void afterChange(String key) {
+        writeBuffer.offer(key);
+        drainBuffers();
+    }
+
+    /**
+     * Runs the maintenance if nobody else is running it. A caller which fails to get the lock
+     * leaves its work to the holder, who checks the write buffer again after unlocking.
+     */
+    private void drainBuffers() {
+        while (!writeBuffer.isEmpty() && evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        if (readBuffer != null && evictionLock.tryLock()) {
+            try {
+                readBuffer.drainTo(policy::onAccess);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        writeDemoted();
+    }
+
+    /**
+     * Serializes the entries demoted to the off-heap tier by the eviction. It runs after the
+     * eviction lock is released, so that the reads and writes waiting for the maintenance do not
+     * wait for the serialization too. The entries which can't be written are removed by size.
+     */
+    private void writeDemoted() {
+        if (offHeapStore != null) {
+            offHeapStore.writePending(cache -> {
+                onRemoval(cache, RemovalCause.SIZE);
+                // the next maintenance drops its tags
+                writeBuffer.offer(cache.getKey());
+            });
+        }
+    }
+
+    /**
+     * Lets the timer wheel and the policy catch up with the mapping of the changed keys, then
+     * expires and evicts. Both always read the current mapping under the lock, so racing
+     * writers of the same key can't leave them out of sync.
+     */
+    private void maintenance() {
+        if (readBuffer != null) {
+            readBuffer.drainTo(policy::onAccess);
+        }
+        String key;
+        while ((key = writeBuffer.poll()) != null) {
+            CacheObject current = cacheMap.get(key);
+            timerWheel.onChange(key, current);
+            if (policy != null) {
+                policy.onChange(key, current);
+            }
+            updateIndex(key, current);
+            updateTags(key, current);
+        }
+        timerWheel.advance(System.currentTimeMillis());
+        if (policy != null) {
+            policy.evict();
+        }
+    }
+
+    private void expire(CacheObject cache) {
+        if (cacheMap.remove(cache.getKey(), cache)) {
+            onRemoval(cache, RemovalCause.EXPIRED);
+        }
+        CacheObject current = cacheMap.get(cache.getKey());
+        if (current == null && offHeapStore != null) {
+            // a value demoted by a racing eviction must not outlive the expired one
+            offHeapStore.discard(cache.getKey());
+        }
+        if (policy != null) {
+            policy.onChange(cache.getKey(), current);
+        }
+        updateIndex(cache.getKey(), current);
+        updateTags(cache.getKey(), current);
+    }
+
+    private void evict(CacheObject cache) {
+        if (cacheMap.remove(cache.getKey(), cache)) {
+            // an entry demoted to the off-heap tier is still cached
+            // only indexed here, the value is serialized once the eviction lock is released
+            boolean demoted = offHeapStore != null && !cache.isExpired() && offHeapStore.reserve(cache);
+            if (!demoted) {
+                onRemoval(cache, cache.isExpired() ? RemovalCause.EXPIRED : RemovalCause.SIZE);
+            }
+        }
+        CacheObject current = cacheMap.get(cache.getKey());
+        timerWheel.onChange(cache.getKey(), current);
+        updateIndex(cache.getKey(), current);
+        updateTags(cache.getKey(), current);
+    }
+
+    private void updateIndex(String key, CacheObject current) {
+        if (current == null) {
+            keyIndex.remove(key);
+        } else {
+            keyIndex.add(key);
+        }
+    }
+
+    private void updateTags(String key, CacheObject current) {
+        if (current == null && offHeapStore != null && offHeapStore.contains(key)) {
+            // still cached off the heap with the same tags
+            return;
+        }
+        String[] tags = current == null ? null : current.getTags();
+        String[] indexed = tags == null ? indexedTags.remove(key) : indexedTags.put(key, tags);
+        if (indexed == tags) {
+            return;
+        }
+        if (indexed != null) {
+            for (String tag : indexed) {
+                Set<String> keys = tagIndex.get(tag);
+                if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                    tagIndex.remove(tag);
+                }
+            }
+        }
+        if (tags != null) {
+            for (String tag : tags) {
+                tagIndex.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            // rethrow what the loader threw in the loading thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The load of a refresh in {@code loadings}, dropped on explicit removals.
+     */
+    private static final class Refresh extends CompletableFuture<Object> {
+    }
+
+    /**
+     * The bounded daemon pool refreshing values of caches without their own executor. All its
+     * threads are core threads, so it grows up to its maximum before queueing, and they time
+     * out when idle.
+     */
+    private static final class DefaultRefreshExecutor {
+        static final Executor INSTANCE = newExecutor();
+
+        private static Executor newExecutor() {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private static CacheOptions newOptions(int initialCapacity) {
+        CacheOptions options = new CacheOptions();
+        options.setInitialCapacity(initialCapacity);
+        return options;
+    }
+}
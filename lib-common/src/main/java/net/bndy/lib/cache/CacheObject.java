@@ -1,14 +1,18 @@
 package net.bndy.lib.cache;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 public class CacheObject implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	private String key;
-    private Object value;
+    private volatile Object value;
     private long durationMillis;
     private long cachedMillis;
+    private String[] tags;
+    private transient Function<String, ?> loader;
+    private transient int weight = 1;
 
     public CacheObject(String key, Object value, long duration) {
         this.key = key;
@@ -17,6 +21,69 @@ public class CacheObject implements Serializable {
         this.cachedMillis = System.currentTimeMillis();
     }
 
+    CacheObject(String key, Object value, long duration, long cachedMillis) {
+        this.key = key;
+        this.value = value;
+        this.durationMillis = duration;
+        this.cachedMillis = cachedMillis;
+    }
+
+    /**
+     * Gets the loader which loaded the value, used to refresh it.
+     *
+     * @return the loader, or {@code null} if the value was put directly
+     */
+    Function<String, ?> getLoader() {
+        return loader;
+    }
+
+    void setLoader(Function<String, ?> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Gets the weight of the entry, computed by the cache before mapping it.
+     *
+     * @return the weight, 1 unless the cache is bounded by weight
+     */
+    int getWeight() {
+        return weight;
+    }
+
+    void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the tags of the value, see {@link CacheEngine#invalidateTag(String)}.
+     *
+     * @return the tags, or {@code null} if none
+     */
+    String[] getTags() {
+        return tags;
+    }
+
+    void setTags(String[] tags) {
+        this.tags = tags != null && tags.length > 0 ? tags : null;
+    }
+
+    /**
+     * Checks whether the value has a tag.
+     *
+     * @param tag the tag
+     * @return {@code true} if tagged with it
+     */
+    boolean hasTag(String tag) {
+        if (tags != null) {
+            for (String t : tags) {
+                if (t.equals(tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public String getKey() {
         return key;
     }
@@ -48,10 +115,30 @@ public class CacheObject implements Serializable {
         this.durationMillis = duration;
     }
 
+    public long getCachedMillis() {
+        return cachedMillis;
+    }
+
+    /**
+     * Gets the time this object expires at.
+     *
+     * @return the milliseconds since epoch, or {@link Long#MAX_VALUE} if it never expires
+     */
+    public long getExpirationMillis() {
+        return durationMillis > 0 ? cachedMillis + durationMillis : Long.MAX_VALUE;
+    }
+
     public boolean isExpired() {
-        if (durationMillis > 0 && System.currentTimeMillis() > cachedMillis + durationMillis) {
-            return true;
-        }
-        return false;
+        return isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether this object is expired at the specified time.
+     *
+     * @param now the milliseconds since epoch
+     * @return {@code true} if expired, otherwise {@code false}
+     */
+    public boolean isExpired(long now) {
+        return durationMillis > 0 && now > cachedMillis + durationMillis;
     }
 }
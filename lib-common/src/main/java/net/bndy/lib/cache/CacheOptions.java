@@ -0,0 +1,261 @@
+package net.bndy.lib.cache;
+
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Options of a {@link CacheEngine}.
+ */
+public class CacheOptions {
+
+    private int initialCapacity = 16;
+    private long defaultDuration = -1;
+    private long maximumSize = -1;
+    private long maximumWeight = -1;
+    private Weigher weigher;
+    private long offHeapMaximumBytes = 0;
+    private int offHeapSlabBytes = 1 << 20;
+    private long refreshAfterWrite = -1;
+    private Executor refreshExecutor;
+    private BiConsumer<String, RuntimeException> refreshFailureHandler;
+    private boolean recordStats;
+    private InvalidationTransport invalidationTransport;
+    private RemovalListener removalListener;
+    private Executor removalExecutor;
+    private int removalQueueCapacity = 65_536;
+    private RemovalOverflowPolicy removalOverflowPolicy = RemovalOverflowPolicy.CALLER_RUNS;
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    /**
+     * Sets the expected number of entries.
+     *
+     * @param initialCapacity the expected number of entries
+     */
+    public void setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+    }
+
+    public long getDefaultDuration() {
+        return defaultDuration;
+    }
+
+    /**
+     * Sets the duration of values put or loaded without one.
+     *
+     * @param defaultDuration the duration in milliseconds, never expires if less than or equal to 0
+     */
+    public void setDefaultDuration(long defaultDuration) {
+        this.defaultDuration = defaultDuration;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum count of entries. Once exceeded, entries are evicted by the W-TinyLFU
+     * policy which keeps the entries most likely to be used again.
+     *
+     * @param maximumSize the maximum count of entries, unbounded if less than or equal to 0
+     */
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Sets the maximum total weight of entries, such as a byte budget, instead of a maximum count.
+     * Once exceeded, entries are evicted by the same policy as {@link #setMaximumSize(long)}.
+     * The entries are weighed by {@link #setWeigher(Weigher)}, which defaults to a
+     * {@link SizeEstimator} measuring bytes.
+     *
+     * @param maximumWeight the maximum weight, unbounded if less than or equal to 0
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Weigher getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * Sets the weigher of entries, only used together with a maximum weight.
+     *
+     * @param weigher the weigher
+     */
+    public void setWeigher(Weigher weigher) {
+        this.weigher = weigher;
+    }
+
+    public long getOffHeapMaximumBytes() {
+        return offHeapMaximumBytes;
+    }
+
+    /**
+     * Sets the byte budget of the off-heap tier. Serializable entries evicted because of the
+     * maximum size are then moved into direct memory instead of being dropped, and moved back
+     * to the heap when read again. Only takes effect together with a maximum size or weight.
+     *
+     * @param offHeapMaximumBytes the byte budget, no off-heap tier if less than or equal to 0
+     */
+    public void setOffHeapMaximumBytes(long offHeapMaximumBytes) {
+        this.offHeapMaximumBytes = offHeapMaximumBytes;
+    }
+
+    public int getOffHeapSlabBytes() {
+        return offHeapSlabBytes;
+    }
+
+    /**
+     * Sets the bytes of each off-heap slab, which is also the largest value the tier accepts.
+     * The tier evicts a whole slab at a time. Defaults to 1 MB.
+     *
+     * @param offHeapSlabBytes the bytes of each slab
+     */
+    public void setOffHeapSlabBytes(int offHeapSlabBytes) {
+        this.offHeapSlabBytes = offHeapSlabBytes;
+    }
+
+    public long getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    /**
+     * Sets the age after which a value loaded by {@link CacheEngine#get(String, java.util.function.Function, long)}
+     * is reloaded in the background. Reads keep getting the current value while the reload
+     * runs, and if the reload fails the current value is served until it expires.
+     *
+     * @param refreshAfterWrite the age in milliseconds, never refreshes if less than or equal to 0
+     */
+    public void setRefreshAfterWrite(long refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * Sets the executor running the refreshes. Defaults to a bounded daemon pool shared by all
+     * caches, a refresh rejected by the executor is simply skipped.
+     *
+     * @param refreshExecutor the executor
+     */
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public BiConsumer<String, RuntimeException> getRefreshFailureHandler() {
+        return refreshFailureHandler;
+    }
+
+    /**
+     * Sets the handler of the exceptions thrown by the loader during a refresh, called on the
+     * refresh executor with the key and the exception. The failures are also counted in the
+     * statistics. Defaults to logging them as warnings.
+     *
+     * @param refreshFailureHandler the handler
+     */
+    public void setRefreshFailureHandler(BiConsumer<String, RuntimeException> refreshFailureHandler) {
+        this.refreshFailureHandler = refreshFailureHandler;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    /**
+     * Sets whether to record the statistics returned by {@link CacheEngine#getStats()}.
+     *
+     * @param recordStats {@code true} to record statistics
+     */
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+    public InvalidationTransport getInvalidationTransport() {
+        return invalidationTransport;
+    }
+
+    /**
+     * Sets the transport broadcasting the keys put or removed by this node to the other nodes,
+     * which then drop their copies. Invalidations are coalesced into batches sent every few
+     * milliseconds. The transport is not closed by the cache.
+     *
+     * @param invalidationTransport the transport, no broadcast if {@code null}
+     */
+    public void setInvalidationTransport(InvalidationTransport invalidationTransport) {
+        this.invalidationTransport = invalidationTransport;
+    }
+
+    public RemovalListener getRemovalListener() {
+        return removalListener;
+    }
+
+    /**
+     * Sets the listener of entries leaving the cache for any {@link RemovalCause}. Notifications
+     * are delivered in batches on the removal executor, and only on the thread using the cache
+     * when the queue overflows under {@link RemovalOverflowPolicy#CALLER_RUNS}.
+     *
+     * @param removalListener the listener
+     */
+    public void setRemovalListener(RemovalListener removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    public Executor getRemovalExecutor() {
+        return removalExecutor;
+    }
+
+    /**
+     * Sets the executor delivering removal notifications. Defaults to a bounded daemon pool
+     * shared by all caches.
+     *
+     * @param removalExecutor the executor
+     */
+    public void setRemovalExecutor(Executor removalExecutor) {
+        this.removalExecutor = removalExecutor;
+    }
+
+    public int getRemovalQueueCapacity() {
+        return removalQueueCapacity;
+    }
+
+    /**
+     * Sets the maximum count of removal notifications waiting for the listener. When a slow
+     * listener lets the queue fill up, further notifications are handled by the
+     * {@link #setRemovalOverflowPolicy(RemovalOverflowPolicy) overflow policy}, so the queue never
+     * grows without limit.
+     *
+     * @param removalQueueCapacity the capacity, 65536 by default
+     */
+    public void setRemovalQueueCapacity(int removalQueueCapacity) {
+        if (removalQueueCapacity <= 0) {
+            throw new IllegalArgumentException("The removal queue capacity must be positive.");
+        }
+        this.removalQueueCapacity = removalQueueCapacity;
+    }
+
+    public RemovalOverflowPolicy getRemovalOverflowPolicy() {
+        return removalOverflowPolicy;
+    }
+
+    /**
+     * Sets what to do with a removal notification when the queue is full.
+     *
+     * @param removalOverflowPolicy the policy, {@link RemovalOverflowPolicy#CALLER_RUNS} by default
+     */
+    public void setRemovalOverflowPolicy(RemovalOverflowPolicy removalOverflowPolicy) {
+        if (removalOverflowPolicy == null) {
+            throw new IllegalArgumentException("The removal overflow policy is required.");
+        }
+        this.removalOverflowPolicy = removalOverflowPolicy;
+    }
+}
@@ -0,0 +1,224 @@
+package net.bndy.lib.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Snapshots of a {@link CacheEngine} on disk, which let a restarted JVM start with a warm cache.
+ * <p>
+ * A snapshot is a compact binary file of the serializable, non-expired entries on the heap with
+ * their expiration times and tags. It is streamed entry by entry into a temporary file which replaces
+ * the previous snapshot atomically, so a crash never leaves a half-written snapshot behind. Each
+ * write rewrites the whole file, the cost of a periodic snapshot is therefore proportional to the
+ * size of the cache, not to the changes since the previous one.
+ * Restoring memory-maps the file and deserializes the entries in parallel in the background.
+ * <p>
+ * The expiration times are absolute wall-clock times, so the time the process was down counts
+ * against the durations and the entries which expired in the meantime are not restored.
+ */
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x4a4c4353;
+    private static final int VERSION = 3;
+    private static final Logger LOGGER = Logger.getLogger(CacheSnapshot.class.getName());
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the cache.
+     *
+     * @param engine the cache
+     * @param file   the snapshot file, replaced if it exists
+     * @return the count of written entries
+     * @throws IOException if the file can't be written
+     */
+    public static int write(CacheEngine engine, File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            for (CacheObject cache : engine.entries()) {
+                long now = System.currentTimeMillis();
+                if (cache.isExpired(now)) {
+                    continue;
+                }
+                byte[] value = ObjectSerializer.serialize(cache.getOriginValue());
+                if (value == null) {
+                    continue;
+                }
+                byte[] key = cache.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeLong(cache.getDuration() > 0 ? cache.getExpirationMillis() : -1);
+                out.writeInt(value.length);
+                out.write(value);
+                String[] tags = cache.getTags();
+                out.writeInt(tags == null ? 0 : tags.length);
+                if (tags != null) {
+                    for (String tag : tags) {
+                        byte[] bytes = tag.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+                count++;
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Writes snapshots of the cache periodically on a background thread.
+     *
+     * @param engine       the cache
+     * @param file         the snapshot file
+     * @param periodMillis the milliseconds between two snapshots
+     * @return the future which cancels the snapshots
+     */
+    public static ScheduledFuture<?> schedule(CacheEngine engine, File file, long periodMillis) {
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write(engine, file);
+            } catch (IOException | RuntimeException e) {
+                // keep the schedule running, the next write may succeed
+                LOGGER.log(Level.WARNING, "Failed to write cache snapshot " + file, e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Restores a snapshot into the cache in the background. Entries put into the cache in the
+     * meantime are not overwritten, and entries which expired since the snapshot are skipped.
+     *
+     * @param engine the cache
+     * @param file   the snapshot file
+     * @return the future of the count of restored entries, 0 if the file does not exist
+     */
+    public static CompletableFuture<Integer> restore(CacheEngine engine, File file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return restoreNow(engine, file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to restore cache snapshot " + file, e);
+            }
+        });
+    }
+
+    private static int restoreNow(CacheEngine engine, File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a cache snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported cache snapshot version " + version + ": " + file);
+        }
+
+        // only the record boundaries are read sequentially, the values are decoded in parallel
+        List<Integer> offsets = new ArrayList<>();
+        try {
+            // the write time, the expiration times are absolute already
+            buffer.getLong();
+            while (buffer.hasRemaining()) {
+                int offset = buffer.position();
+                skip(buffer, buffer.getInt(), file);
+                buffer.getLong();
+                skip(buffer, buffer.getInt(), file);
+                int tags = buffer.getInt();
+                if (tags < 0) {
+                    throw new IOException("Corrupt cache snapshot, bad tag count at " + offset + ": " + file);
+                }
+                for (; tags > 0; tags--) {
+                    skip(buffer, buffer.getInt(), file);
+                }
+                offsets.add(offset);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated cache snapshot: " + file, e);
+        }
+
+        AtomicInteger restored = new AtomicInteger();
+        IntStream.range(0, offsets.size()).parallel().forEach(i -> {
+            ByteBuffer record = buffer.duplicate();
+            record.position(offsets.get(i));
+            byte[] key = new byte[record.getInt()];
+            record.get(key);
+            long expiration = record.getLong();
+            long duration = -1;
+            if (expiration >= 0) {
+                duration = expiration - System.currentTimeMillis();
+                if (duration <= 0) {
+                    return;
+                }
+            }
+            byte[] value = new byte[record.getInt()];
+            record.get(value);
+            String[] tags = new String[record.getInt()];
+            for (int t = 0; t < tags.length; t++) {
+                byte[] tag = new byte[record.getInt()];
+                record.get(tag);
+                tags[t] = new String(tag, StandardCharsets.UTF_8);
+            }
+            Object object = ObjectSerializer.deserialize(value);
+            if (object != null && engine.restore(new String(key, StandardCharsets.UTF_8), object, duration, tags)) {
+                restored.incrementAndGet();
+            }
+        });
+        return restored.get();
+    }
+
+    /**
+     * Skips the bytes of a length-prefixed field, checking the length against the file.
+     */
+    private static void skip(ByteBuffer buffer, int length, File file) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Corrupt cache snapshot, bad length " + length + " at " + buffer.position() + ": " + file);
+        }
+        buffer.position(buffer.position() + length);
+    }
+}
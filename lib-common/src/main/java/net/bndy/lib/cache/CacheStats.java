@@ -0,0 +1,181 @@
+package net.bndy.lib.cache;
+
+/**
+ * An immutable snapshot of the statistics of a {@link CacheEngine}, see
+ * {@link CacheOptions#setRecordStats(boolean)}.
+ */
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long[] removalCounts;
+    private final long[] loadLatencyHistogram;
+    private final long size;
+    private final long weightedSize;
+    private final long offHeapSize;
+    private final long droppedRemovalNotificationCount;
+
+    CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+               long[] removalCounts, long[] loadLatencyHistogram, long size, long weightedSize, long offHeapSize,
+               long droppedRemovalNotificationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.removalCounts = removalCounts;
+        this.loadLatencyHistogram = loadLatencyHistogram;
+        this.size = size;
+        this.weightedSize = weightedSize;
+        this.offHeapSize = offHeapSize;
+        this.droppedRemovalNotificationCount = droppedRemovalNotificationCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Gets the ratio of reads which found a value.
+     *
+     * @return the ratio, 1.0 if there was no read
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Gets the count of loads which returned a value.
+     *
+     * @return the count
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * Gets the count of loads which threw or returned {@code null}.
+     *
+     * @return the count
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Gets the total time spent loading.
+     *
+     * @return the nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Gets the average time of a load.
+     *
+     * @return the nanoseconds, 0 if there was no load
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * Gets the count of entries which left the cache for the specified cause.
+     *
+     * @param cause the cause
+     * @return the count
+     */
+    public long getRemovalCount(RemovalCause cause) {
+        return removalCounts[cause.ordinal()];
+    }
+
+    /**
+     * Gets the count of entries which were evicted because they expired or to keep the size.
+     *
+     * @return the count
+     */
+    public long getEvictionCount() {
+        return getRemovalCount(RemovalCause.EXPIRED) + getRemovalCount(RemovalCause.SIZE);
+    }
+
+    /**
+     * Gets the histogram of load times, see {@link #getLoadLatencyBucketMicros(int)}.
+     *
+     * @return the count of loads per bucket
+     */
+    public long[] getLoadLatencyHistogram() {
+        return loadLatencyHistogram.clone();
+    }
+
+    /**
+     * Gets the lower bound of a bucket of the load latency histogram. Each bucket ends where the
+     * next one starts, the last bucket has no upper bound.
+     *
+     * @param bucket the index of the bucket
+     * @return the microseconds
+     */
+    public static long getLoadLatencyBucketMicros(int bucket) {
+        return bucket == 0 ? 0 : 1L << bucket;
+    }
+
+    /**
+     * Gets the count of entries on the heap when the snapshot was taken.
+     *
+     * @return the count
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the total weight of entries on the heap when the snapshot was taken, which is the
+     * count of entries unless the cache is bounded by {@link CacheOptions#setMaximumWeight(long)}.
+     *
+     * @return the weight
+     */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Gets the count of entries in the off-heap tier when the snapshot was taken.
+     *
+     * @return the count
+     */
+    public long getOffHeapSize() {
+        return offHeapSize;
+    }
+
+    /**
+     * Gets the count of removal notifications dropped because the listener fell behind, see
+     * {@link RemovalOverflowPolicy#DROP}. Counted even if statistics are not recorded.
+     *
+     * @return the count
+     */
+    public long getDroppedRemovalNotificationCount() {
+        return droppedRemovalNotificationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount
+            + ", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount=" + loadFailureCount
+            + ", totalLoadTime=" + totalLoadTime + ", evictionCount=" + getEvictionCount()
+            + ", size=" + size + ", weightedSize=" + weightedSize + ", offHeapSize=" + offHeapSize
+            + ", droppedRemovalNotificationCount=" + droppedRemovalNotificationCount + "}";
+    }
+}
@@ -0,0 +1,94 @@
+package net.bndy.lib.cache;
+
+/**
+ * Exposes the statistics of a {@link CacheEngine} through JMX. Each attribute reads only the
+ * counter it needs, never taking a lock, instead of a full {@link CacheStats} snapshot.
+ */
+final class CacheStatsBean implements CacheStatsMXBean {
+
+    private final CacheEngine engine;
+
+    CacheStatsBean(CacheEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public long getHitCount() {
+        return engine.statsCounter().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return engine.statsCounter().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        StatsCounter counter = engine.statsCounter();
+        long hits = counter.hitCount();
+        long requests = hits + counter.missCount();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return engine.statsCounter().loadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return engine.statsCounter().loadFailureCount();
+    }
+
+    @Override
+    public double getAverageLoadPenalty() {
+        StatsCounter counter = engine.statsCounter();
+        long loads = counter.loadSuccessCount() + counter.loadFailureCount();
+        return loads == 0 ? 0 : (double) counter.totalLoadTime() / loads;
+    }
+
+    @Override
+    public long[] getLoadLatencyHistogram() {
+        return engine.statsCounter().loadLatencyHistogram();
+    }
+
+    @Override
+    public long getExplicitRemovalCount() {
+        return engine.statsCounter().removalCount(RemovalCause.EXPLICIT);
+    }
+
+    @Override
+    public long getReplacedCount() {
+        return engine.statsCounter().removalCount(RemovalCause.REPLACED);
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return engine.statsCounter().removalCount(RemovalCause.EXPIRED);
+    }
+
+    @Override
+    public long getSizeEvictionCount() {
+        return engine.statsCounter().removalCount(RemovalCause.SIZE);
+    }
+
+    @Override
+    public long getSize() {
+        return engine.sizeNow();
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return engine.weightedSizeNow();
+    }
+
+    @Override
+    public long getOffHeapSize() {
+        return engine.getOffHeapSize();
+    }
+
+    @Override
+    public long getDroppedRemovalNotificationCount() {
+        return engine.droppedRemovalNotificationCount();
+    }
+}
@@ -0,0 +1,38 @@
+package net.bndy.lib.cache;
+
+/**
+ * The JMX view of the statistics of a {@link CacheEngine}, see
+ * {@link CacheEngine#registerMBean(String)}.
+ */
+public interface CacheStatsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadPenalty();
+
+    long[] getLoadLatencyHistogram();
+
+    long getExplicitRemovalCount();
+
+    long getReplacedCount();
+
+    long getExpiredCount();
+
+    long getSizeEvictionCount();
+
+    long getSize();
+
+    long getWeightedSize();
+
+    long getOffHeapSize();
+
+    long getDroppedRemovalNotificationCount();
+}
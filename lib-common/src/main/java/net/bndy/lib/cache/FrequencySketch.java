@@ -0,0 +1,117 @@
+package net.bndy.lib.cache;
+
+/**
+ * A probabilistic popularity estimate of keys, used by {@link TinyLfuPolicy} to decide which of
+ * two entries is more valuable to keep.
+ * <p>
+ * This is a count-min sketch with four 4-bit counters per key packed into a {@code long[]}.
+ * All counters are halved once the number of increments reaches ten times the cache size, so
+ * the estimate follows recent popularity instead of all-time popularity. Not thread-safe, it is
+ * only used under the eviction lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Creates a sketch for a cache holding up to the specified number of entries.
+     *
+     * @param maximumSize the maximum entries of the cache
+     */
+    FrequencySketch(long maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Grows the sketch if the cache holds more entries than it was sized for, which happens when
+     * the cache is bounded by weight. Growing forgets all counts.
+     *
+     * @param maximumSize the maximum entries of the cache
+     */
+    void ensureCapacity(long maximumSize) {
+        int maximum = (int) Math.max(8, Math.min(maximumSize, MAXIMUM_CAPACITY));
+        int length = Integer.highestOneBit(maximum - 1) << 1;
+        if (table != null && table.length >= length) {
+            return;
+        }
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(10L * maximum, Integer.MAX_VALUE);
+        this.size = 0;
+    }
+
+    /**
+     * Gets the estimated number of occurrences of a key, at most 15.
+     *
+     * @param key the key
+     * @return the estimated frequency
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of a key.
+     *
+     * @param key the key
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (count >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,145 @@
+package net.bndy.lib.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * An invalidation broadcast to the peer nodes of a cache, see {@link InvalidationTransport}.
+ */
+public final class Invalidation implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The kinds of invalidations.
+     */
+    public enum Type {
+        /**
+         * Removes the value of a key.
+         */
+        KEY,
+        /**
+         * Removes the values whose key starts with a prefix.
+         */
+        PREFIX,
+        /**
+         * Removes all values.
+         */
+        ALL,
+        /**
+         * Removes the values tagged with a tag.
+         */
+        TAG
+    }
+
+    private static final Invalidation ALL = new Invalidation(Type.ALL, "");
+
+    private final Type type;
+    private final String value;
+
+    private Invalidation(Type type, String value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Creates an invalidation of a key.
+     *
+     * @param key the key
+     * @return the invalidation
+     */
+    public static Invalidation key(String key) {
+        return new Invalidation(Type.KEY, key);
+    }
+
+    /**
+     * Creates an invalidation of the keys which start with a prefix.
+     *
+     * @param keyPrefix the key prefix
+     * @return the invalidation
+     */
+    public static Invalidation prefix(String keyPrefix) {
+        return new Invalidation(Type.PREFIX, keyPrefix);
+    }
+
+    /**
+     * Creates an invalidation of the values tagged with a tag.
+     *
+     * @param tag the tag
+     * @return the invalidation
+     */
+    public static Invalidation tag(String tag) {
+        return new Invalidation(Type.TAG, tag);
+    }
+
+    /**
+     * Gets the invalidation of all keys.
+     *
+     * @return the invalidation
+     */
+    public static Invalidation all() {
+        return ALL;
+    }
+
+    /**
+     * Creates an invalidation.
+     *
+     * @param type  the type
+     * @param value the key, the key prefix or the tag, ignored for {@link Type#ALL}
+     * @return the invalidation
+     */
+    public static Invalidation of(Type type, String value) {
+        return type == Type.ALL ? ALL : new Invalidation(type, value);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the key, the key prefix or the tag.
+     *
+     * @return the key, the key prefix, the tag, or an empty string for {@link Type#ALL}
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Checks whether this invalidation already covers another one.
+     *
+     * @param other the other invalidation
+     * @return {@code true} if applying this one makes the other one useless
+     */
+    boolean covers(Invalidation other) {
+        switch (type) {
+            case ALL:
+                return true;
+            case PREFIX:
+                return (other.type == Type.KEY || other.type == Type.PREFIX) && other.value.startsWith(value);
+            default:
+                return equals(other);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Invalidation)) {
+            return false;
+        }
+        Invalidation other = (Invalidation) obj;
+        return type == other.type && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value);
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + value;
+    }
+}
@@ -0,0 +1,135 @@
+package net.bndy.lib.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connects a {@link CacheEngine} to an {@link InvalidationTransport}.
+ * <p>
+ * Local invalidations are coalesced for {@value #FLUSH_DELAY_MILLIS} ms, or until
+ * {@value #MAX_BATCH} are pending, and published as one batch. Duplicates and invalidations
+ * covered by a pending prefix are dropped. Batches from other nodes are applied to the engine
+ * without being published again.
+ * <p>
+ * The bus only receives batches between {@link #start()} and {@link #close()}, so the engine
+ * subscribes once it is fully constructed and a discarded engine is not kept reachable by the
+ * transport.
+ */
+final class InvalidationBus {
+
+    static final long FLUSH_DELAY_MILLIS = 10;
+    static final int MAX_BATCH = 256;
+
+    private static final Logger LOGGER = Logger.getLogger(InvalidationBus.class.getName());
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final InvalidationTransport.Subscriber subscriber;
+    private final List<Invalidation> pending = new ArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates the bus, which receives nothing until started.
+     *
+     * @param transport the transport
+     * @param applier   the callback applying an invalidation from another node to the engine
+     */
+    InvalidationBus(InvalidationTransport transport, Consumer<Invalidation> applier) {
+        this.transport = transport;
+        this.subscriber = (origin, invalidations) -> {
+            if (!nodeId.equals(origin)) {
+                invalidations.forEach(applier);
+            }
+        };
+    }
+
+    /**
+     * Subscribes to the transport.
+     */
+    void start() {
+        transport.subscribe(subscriber);
+    }
+
+    /**
+     * Publishes the pending invalidations and unsubscribes from the transport.
+     */
+    void close() {
+        transport.unsubscribe(subscriber);
+        flush();
+        closed = true;
+    }
+
+    /**
+     * Queues an invalidation for the next batch.
+     *
+     * @param invalidation the invalidation
+     */
+    void publish(Invalidation invalidation) {
+        if (closed) {
+            return;
+        }
+        boolean schedule;
+        boolean full;
+        synchronized (pending) {
+            for (Invalidation queued : pending) {
+                if (queued.covers(invalidation)) {
+                    return;
+                }
+            }
+            pending.removeIf(invalidation::covers);
+            schedule = pending.isEmpty();
+            pending.add(invalidation);
+            full = pending.size() >= MAX_BATCH;
+        }
+        if (full) {
+            Scheduler.INSTANCE.execute(this::flush);
+        } else if (schedule) {
+            Scheduler.INSTANCE.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publishes the pending invalidations.
+     */
+    void flush() {
+        List<Invalidation> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        try {
+            transport.publish(nodeId, batch);
+        } catch (IOException e) {
+            // the peers serve their values until they expire
+            LOGGER.log(Level.WARNING, "Failed to publish " + batch.size() + " cache invalidations", e);
+        }
+    }
+
+    /**
+     * The daemon thread flushing the batches of all buses.
+     */
+    private static final class Scheduler {
+        static final ScheduledExecutorService INSTANCE = newScheduler();
+
+        private static ScheduledExecutorService newScheduler() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "cache-invalidation");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.bndy.lib.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Carries invalidations between the nodes sharing a cache, so that a value removed on one node
+ * is not served stale by the others. See {@link CacheOptions#setInvalidationTransport(InvalidationTransport)}.
+ * <p>
+ * Transports deliver on a best-effort basis, so keep a duration on the values as a safety net
+ * for lost messages. Implementations must be thread-safe.
+ */
+public interface InvalidationTransport extends Closeable {
+
+    /**
+     * Sends a batch of invalidations to all subscribers, including the ones of this node.
+     *
+     * @param origin        the id of the sending node, which ignores its own batches
+     * @param invalidations the invalidations
+     * @throws IOException if the batch can't be sent
+     */
+    void publish(String origin, List<Invalidation> invalidations) throws IOException;
+
+    /**
+     * Registers a subscriber of the batches sent by any node.
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber subscriber);
+
+    /**
+     * Removes a subscriber, which receives no batch once this returns.
+     *
+     * @param subscriber the subscriber
+     */
+    void unsubscribe(Subscriber subscriber);
+
+    /**
+     * Receives the batches of invalidations.
+     */
+    @FunctionalInterface
+    interface Subscriber {
+
+        /**
+         * Handles a batch of invalidations.
+         *
+         * @param origin        the id of the sending node
+         * @param invalidations the invalidations
+         */
+        void onInvalidations(String origin, List<Invalidation> invalidations);
+    }
+}
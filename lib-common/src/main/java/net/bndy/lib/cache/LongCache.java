@@ -0,0 +1,392 @@
+package net.bndy.lib.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe cache of {@code long} keys to {@code long} values which neither boxes nor wraps
+ * its entries, intended for counters and id lookups on hot paths.
+ * <p>
+ * The entries are striped over segments, each an open-addressing table with linear probing
+ * stored in plain {@code long[]} arrays. Writers lock their segment; readers probe under an
+ * optimistic {@link StampedLock} stamp and only take the read lock if a writer interfered.
+ */
+public class LongCache {
+
+    /**
+     * The value returned by {@link #getLong(long)} for an absent key.
+     */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final long duration;
+
+    /**
+     * Creates a cache whose entries never expire.
+     */
+    public LongCache() {
+        this(16, -1);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param initialCapacity the expected number of entries
+     * @param duration        the duration in milliseconds of each entry since it was last written,
+     *                        never expires if less than or equal to 0
+     */
+    public LongCache(int initialCapacity, long duration) {
+        this.duration = duration;
+        this.segments = new Segment[SEGMENTS];
+        int capacity = Math.max(4, initialCapacity / SEGMENTS * 2);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Integer.highestOneBit(capacity - 1) << 1, duration > 0);
+        }
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @return the value, or {@link #NO_VALUE} if absent or expired
+     */
+    public long getLong(long key) {
+        return getLong(key, NO_VALUE);
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key          the key
+     * @param absentValue  the value to return if absent or expired
+     * @return the value, or {@code absentValue} if absent or expired
+     */
+    public long getLong(long key, long absentValue) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash, absentValue, expiredBefore());
+    }
+
+    /**
+     * Checks whether a key is mapped to a value which is not expired.
+     *
+     * @param key the key
+     * @return {@code true} if present, otherwise {@code false}
+     */
+    public boolean containsKey(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).contains(key, hash, expiredBefore());
+    }
+
+    /**
+     * Puts a value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(long key, long value) {
+        int hash = hash(key);
+        segmentFor(hash).update(key, hash, value, false, now(), expiredBefore());
+    }
+
+    /**
+     * Adds to a value atomically, an absent or expired value counts as 0.
+     *
+     * @param key   the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public long addAndGet(long key, long delta) {
+        int hash = hash(key);
+        return segmentFor(hash).update(key, hash, delta, true, now(), expiredBefore());
+    }
+
+    /**
+     * Increments a value atomically, an absent or expired value counts as 0.
+     *
+     * @param key the key
+     * @return the incremented value
+     */
+    public long increment(long key) {
+        return addAndGet(key, 1);
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     * @return {@code true} if a value was removed
+     */
+    public boolean remove(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    /**
+     * Gets the count of entries. Expired entries are only dropped when their key is written or
+     * when a segment is rehashed, so they may still be counted.
+     *
+     * @return the count
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the count of allocated slots of all segments, each costing 17 bytes, or 25 bytes with
+     * expiration. The tables double when they fill up with live entries, and are rehashed at the
+     * same or a smaller capacity when they only fill up with expired ones.
+     *
+     * @return the count
+     */
+    public int capacity() {
+        int capacity = 0;
+        for (Segment segment : segments) {
+            capacity += segment.table.keys.length;
+        }
+        return capacity;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private long now() {
+        return duration > 0 ? System.currentTimeMillis() : 0;
+    }
+
+    private long expiredBefore() {
+        return duration > 0 ? System.currentTimeMillis() - duration : Long.MIN_VALUE;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENTS - 1)];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final long[] values;
+        final long[] writes;
+        final boolean[] used;
+        final int mask;
+
+        Table(int capacity, boolean expiring) {
+            this.keys = new long[capacity];
+            this.values = new long[capacity];
+            this.writes = expiring ? new long[capacity] : null;
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+        }
+
+        boolean isLive(int index, long expiredBefore) {
+            return writes == null || writes[index] >= expiredBefore;
+        }
+    }
+
+    private static final class Segment extends StampedLock {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean expiring;
+        private final int initialCapacity;
+        private volatile Table table;
+        volatile int size;
+
+        Segment(int capacity, boolean expiring) {
+            this.expiring = expiring;
+            this.initialCapacity = capacity;
+            this.table = new Table(capacity, expiring);
+        }
+
+        long get(long key, int hash, long absentValue, long expiredBefore) {
+            long stamp = tryOptimisticRead();
+            Table t = table;
+            int index = find(t, key, hash, expiredBefore);
+            long result = index < 0 ? absentValue : t.values[index];
+            if (!validate(stamp)) {
+                stamp = readLock();
+                try {
+                    t = table;
+                    index = find(t, key, hash, expiredBefore);
+                    result = index < 0 ? absentValue : t.values[index];
+                } finally {
+                    unlockRead(stamp);
+                }
+            }
+            return result;
+        }
+
+        boolean contains(long key, int hash, long expiredBefore) {
+            long stamp = tryOptimisticRead();
+            boolean result = find(table, key, hash, expiredBefore) >= 0;
+            if (!validate(stamp)) {
+                stamp = readLock();
+                try {
+                    result = find(table, key, hash, expiredBefore) >= 0;
+                } finally {
+                    unlockRead(stamp);
+                }
+            }
+            return result;
+        }
+
+        long update(long key, int hash, long value, boolean add, long now, long expiredBefore) {
+            long stamp = writeLock();
+            try {
+                Table t = table;
+                int index = indexOf(t, key, hash);
+                if (t.used[index]) {
+                    if (add && t.isLive(index, expiredBefore)) {
+                        value += t.values[index];
+                    }
+                } else {
+                    if ((size + 1) * 3 >= t.keys.length * 2) {
+                        t = resize(t, expiredBefore);
+                        index = indexOf(t, key, hash);
+                    }
+                    t.used[index] = true;
+                    t.keys[index] = key;
+                    size++;
+                }
+                t.values[index] = value;
+                if (t.writes != null) {
+                    t.writes[index] = now;
+                }
+                return value;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long key, int hash) {
+            long stamp = writeLock();
+            try {
+                Table t = table;
+                int index = indexOf(t, key, hash);
+                if (!t.used[index]) {
+                    return false;
+                }
+                delete(t, index);
+                size--;
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = writeLock();
+            try {
+                table = new Table(initialCapacity, expiring);
+                size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Gets the slot of a live key. The probes are bounded because an optimistic reader may
+         * see the table in the middle of a write.
+         */
+        private static int find(Table t, long key, int hash, long expiredBefore) {
+            for (int i = hash & t.mask, probes = 0; probes <= t.mask; i = (i + 1) & t.mask, probes++) {
+                if (!t.used[i]) {
+                    return -1;
+                }
+                if (t.keys[i] == key) {
+                    return t.isLive(i, expiredBefore) ? i : -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Gets the slot of a key, or the free slot where it belongs.
+         */
+        private static int indexOf(Table t, long key, int hash) {
+            int i = hash & t.mask;
+            while (t.used[i] && t.keys[i] != key) {
+                i = (i + 1) & t.mask;
+            }
+            return i;
+        }
+
+        /**
+         * Deletes a slot by shifting back the following entries of its probe sequence, so that
+         * no tombstones are needed.
+         */
+        private static void delete(Table t, int index) {
+            int i = index;
+            int j = index;
+            while (true) {
+                j = (j + 1) & t.mask;
+                if (!t.used[j]) {
+                    break;
+                }
+                int home = hash(t.keys[j]) & t.mask;
+                boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (between) {
+                    continue;
+                }
+                t.keys[i] = t.keys[j];
+                t.values[i] = t.values[j];
+                if (t.writes != null) {
+                    t.writes[i] = t.writes[j];
+                }
+                i = j;
+            }
+            t.used[i] = false;
+        }
+
+        /**
+         * Rehashes the live entries when the table is full. The capacity only doubles when the
+         * live entries fill more than a third of it, so that the expired entries of a steady churn
+         * of new keys are purged instead of growing the table, and a table emptied by expiration
+         * shrinks back towards its initial capacity.
+         */
+        private Table resize(Table old, long expiredBefore) {
+            int live = 0;
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.used[i] && old.isLive(i, expiredBefore)) {
+                    live++;
+                }
+            }
+            int capacity = old.keys.length;
+            if ((live + 1) * 3 >= capacity) {
+                capacity *= 2;
+            } else {
+                while (capacity > initialCapacity && (live + 1) * 6 < capacity) {
+                    capacity /= 2;
+                }
+            }
+            Table t = new Table(capacity, expiring);
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.used[i] && old.isLive(i, expiredBefore)) {
+                    int index = indexOf(t, old.keys[i], hash(old.keys[i]));
+                    t.used[index] = true;
+                    t.keys[index] = old.keys[i];
+                    t.values[index] = old.values[i];
+                    if (t.writes != null) {
+                        t.writes[index] = old.writes[i];
+                    }
+                }
+            }
+            size = live;
+            table = t;
+            return t;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.bndy.lib.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process {@link InvalidationTransport}, delivering each batch synchronously to all
+ * subscribers. Caches sharing an instance behave like the nodes of a cluster, which is mostly
+ * useful for tests.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Delivers a batch to every subscriber, even if one fails.
+     *
+     * @throws RuntimeException the first failure of a subscriber, once all were called
+     */
+    @Override
+    public void publish(String origin, List<Invalidation> invalidations) {
+        RuntimeException failure = null;
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onInvalidations(origin, invalidations);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void close() {
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,203 @@
+package net.bndy.lib.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link InvalidationTransport} over UDP multicast, for nodes on the same network segment.
+ * <p>
+ * Each batch is packed into as few datagrams as possible, up to {@value #MAX_PACKET_BYTES}
+ * bytes each. UDP may drop datagrams, in which case the peers serve their values until they
+ * expire. A daemon thread receives the datagrams and calls the subscribers. When receiving
+ * fails, it logs the error and retries after a delay doubling up to
+ * {@value #MAX_RETRY_DELAY_MILLIS} ms, so a persistent error doesn't spin the thread.
+ */
+public class MulticastTransport implements InvalidationTransport {
+
+    /**
+     * The maximum bytes of a datagram, which stays clear of the 64 KB limit of UDP.
+     */
+    public static final int MAX_PACKET_BYTES = 8192;
+
+    /**
+     * The maximum milliseconds between two attempts to receive after failures.
+     */
+    public static final long MAX_RETRY_DELAY_MILLIS = 1000;
+
+    private static final int MAGIC = 0x4a4c4356;
+    private static final byte VERSION = 1;
+    private static final Logger LOGGER = Logger.getLogger(MulticastTransport.class.getName());
+
+    private final InetAddress group;
+    private final int port;
+    private final NetworkInterface networkInterface;
+    private final MulticastSocket socket;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Joins a multicast group.
+     *
+     * @param group the address of the group, such as {@code 239.1.2.3}
+     * @param port  the port shared by the nodes
+     * @throws IOException if the socket can't be opened or the group can't be joined
+     */
+    public MulticastTransport(String group, int port) throws IOException {
+        this(InetAddress.getByName(group), port, null);
+    }
+
+    /**
+     * Joins a multicast group on the default interface.
+     *
+     * @param group the address of the group
+     * @param port  the port shared by the nodes
+     * @throws IOException if the socket can't be opened or the group can't be joined
+     */
+    public MulticastTransport(InetAddress group, int port) throws IOException {
+        this(group, port, null);
+    }
+
+    /**
+     * Joins a multicast group on a network interface.
+     *
+     * @param group            the address of the group
+     * @param port             the port shared by the nodes
+     * @param networkInterface the interface sending and receiving the datagrams, {@code null}
+     *                         for the default one
+     * @throws IOException if the socket can't be opened or the group can't be joined
+     */
+    public MulticastTransport(InetAddress group, int port, NetworkInterface networkInterface) throws IOException {
+        this.group = group;
+        this.port = port;
+        this.networkInterface = networkInterface;
+        this.socket = new MulticastSocket(port);
+        try {
+            if (networkInterface != null) {
+                socket.setNetworkInterface(networkInterface);
+            }
+            socket.joinGroup(new InetSocketAddress(group, 0), networkInterface);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+        Thread receiver = new Thread(this::receive, "cache-invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void publish(String origin, List<Invalidation> invalidations) throws IOException {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream(MAX_PACKET_BYTES);
+        DataOutputStream out = new DataOutputStream(packet);
+        writeHeader(out, origin);
+        int headerBytes = packet.size();
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entry);
+        for (Invalidation invalidation : invalidations) {
+            entry.reset();
+            entryOut.writeByte(invalidation.getType().ordinal());
+            entryOut.writeUTF(invalidation.getValue());
+            if (packet.size() > headerBytes && packet.size() + entry.size() > MAX_PACKET_BYTES) {
+                send(packet);
+                packet.reset();
+                writeHeader(out, origin);
+            }
+            entry.writeTo(out);
+        }
+        if (packet.size() > headerBytes) {
+            send(packet);
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            socket.leaveGroup(new InetSocketAddress(group, 0), networkInterface);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void send(ByteArrayOutputStream packet) throws IOException {
+        byte[] bytes = packet.toByteArray();
+        socket.send(new DatagramPacket(bytes, bytes.length, group, port));
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[65535];
+        long retryDelay = 0;
+        while (!closed) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                retryDelay = 0;
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                retryDelay = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(10, retryDelay * 2));
+                LOGGER.log(Level.WARNING, "Failed to receive cache invalidations, retrying in " + retryDelay + " ms", e);
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            String origin;
+            List<Invalidation> invalidations = new ArrayList<>();
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength()))) {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    continue;
+                }
+                origin = in.readUTF();
+                while (in.available() > 0) {
+                    Invalidation.Type type = Invalidation.Type.values()[in.readUnsignedByte()];
+                    invalidations.add(Invalidation.of(type, in.readUTF()));
+                }
+            } catch (IOException | RuntimeException e) {
+                // a foreign or truncated datagram
+                LOGGER.log(Level.FINE, "Dropped a cache invalidation datagram", e);
+                continue;
+            }
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    subscriber.onInvalidations(origin, invalidations);
+                } catch (RuntimeException e) {
+                    // the other subscribers still get the batch, this one may now serve stale values
+                    LOGGER.log(Level.WARNING, "Failed to apply cache invalidations from " + origin, e);
+                }
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, String origin) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(origin);
+    }
+}
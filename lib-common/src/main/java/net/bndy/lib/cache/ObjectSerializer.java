@@ -0,0 +1,50 @@
+package net.bndy.lib.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Java serialization of cached values stored outside of the heap.
+ */
+final class ObjectSerializer {
+
+    private ObjectSerializer() {
+    }
+
+    /**
+     * Serializes a value.
+     *
+     * @param value the value
+     * @return the bytes, or {@code null} if the value is not serializable
+     */
+    static byte[] serialize(Object value) {
+        if (!(value instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a value.
+     *
+     * @param bytes the bytes
+     * @return the value, or {@code null} if the bytes can't be read
+     */
+    static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package net.bndy.lib.cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * The off-heap tier of a {@link CacheEngine}, holding serialized values in direct
+ * {@link ByteBuffer} slabs which the garbage collector never has to scan.
+ * <p>
+ * Slabs are filled like a log: values are appended to the current slab and, once the byte
+ * budget is used up, the oldest slab is emptied and reused. Removing a value only drops its
+ * index entry, the space is reclaimed when its slab is reused. Writes are serialized by a
+ * {@link StampedLock} while reads copy their bytes under an optimistic stamp.
+ * <p>
+ * A demotion runs in two steps, so that the engine never serializes under its eviction lock:
+ * {@link #reserve(CacheObject)} indexes the entry as it is, and {@link #writePending(Consumer)}
+ * later serializes it into a slab unless it was removed or replaced in the meantime.
+ */
+final class OffHeapStore {
+
+    private final int slabBytes;
+    private final int maximumSlabs;
+    private final List<Slab> slabs = new ArrayList<>();
+    private final ConcurrentSkipListMap<String, Location> index = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Queue<Location> pending = new ConcurrentLinkedQueue<>();
+    private final StampedLock lock = new StampedLock();
+    private final Consumer<String> evictionListener;
+    private Slab current;
+    private int oldest;
+
+    /**
+     * Creates the store.
+     *
+     * @param maximumBytes the byte budget
+     * @param slabBytes    the bytes of each slab
+     * @param evictionListener the callback receiving the keys dropped when their slab is reused
+     */
+    OffHeapStore(long maximumBytes, int slabBytes, Consumer<String> evictionListener) {
+        this.slabBytes = slabBytes;
+        this.evictionListener = evictionListener;
+        this.maximumSlabs = (int) Math.max(1, Math.min(maximumBytes / slabBytes, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Gets the count of stored values, including expired ones which were not read since.
+     *
+     * @return the count
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets the bytes of the allocated slabs.
+     *
+     * @return the bytes
+     */
+    long allocatedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) slabs.size() * slabBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Indexes an entry demoted from the heap without serializing it, which is cheap enough to
+     * run under the eviction lock of the engine. Until it is written by
+     * {@link #writePending(Consumer)}, the entry is found by {@link #contains(String)} and
+     * {@link #remove(String)} returns it as it is.
+     *
+     * @param cache the entry
+     * @return {@code false} if the value is not serializable
+     */
+    boolean reserve(CacheObject cache) {
+        if (!(cache.getOriginValue() instanceof Serializable)) {
+            return false;
+        }
+        Location location = new Location(cache);
+        if (index.put(cache.getKey(), location) == null) {
+            size.incrementAndGet();
+        }
+        pending.offer(location);
+        return true;
+    }
+
+    /**
+     * Serializes the reserved entries into the slabs, skipping the ones which were removed or
+     * replaced since they were reserved. Called by the engine without holding its eviction lock.
+     *
+     * @param failures receives the entries which are dropped since their value can't be
+     *                 serialized or is larger than a slab
+     */
+    void writePending(Consumer<CacheObject> failures) {
+        Location reserved;
+        while ((reserved = pending.poll()) != null) {
+            CacheObject cache = reserved.pending;
+            if (index.get(cache.getKey()) == reserved && !write(cache, reserved)
+                && index.remove(cache.getKey(), reserved)) {
+                size.decrementAndGet();
+                failures.accept(cache);
+            }
+        }
+    }
+
+    private boolean write(CacheObject cache, Location reserved) {
+        byte[] bytes = ObjectSerializer.serialize(cache.getOriginValue());
+        if (bytes == null || bytes.length > slabBytes) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (index.get(cache.getKey()) != reserved) {
+                // removed while it was serialized
+                return true;
+            }
+            if (current == null || current.position + bytes.length > slabBytes) {
+                current = nextSlab();
+            }
+            int offset = current.position;
+            ByteBuffer target = current.buffer.duplicate();
+            target.position(offset);
+            target.put(bytes);
+            current.position += bytes.length;
+            current.keys.add(cache.getKey());
+            Location location = new Location(current, current.generation, offset, bytes.length,
+                cache.getDuration(), cache.getCachedMillis(), cache.getTags());
+            // a concurrent discard does not take the lock, the space is then reclaimed with the slab
+            index.replace(cache.getKey(), reserved, location);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes and returns an entry.
+     *
+     * @param key the key
+     * @return the entry, or {@code null} if absent or not readable
+     */
+    CacheObject remove(String key) {
+        Location location = index.remove(key);
+        if (location == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        if (location.pending != null) {
+            return location.pending;
+        }
+        byte[] bytes = read(location);
+        if (bytes == null) {
+            return null;
+        }
+        Object value = ObjectSerializer.deserialize(bytes);
+        if (value == null) {
+            return null;
+        }
+        CacheObject cache = new CacheObject(key, value, location.duration, location.cachedMillis);
+        cache.setTags(location.tags);
+        return cache;
+    }
+
+    /**
+     * Drops an entry without reading it.
+     *
+     * @param key the key
+     * @return {@code true} if an entry was dropped
+     */
+    boolean discard(String key) {
+        if (index.remove(key) != null) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an entry is stored.
+     *
+     * @param key the key
+     * @return {@code true} if stored
+     */
+    boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Removes all entries whose key starts with the prefix.
+     *
+     * @param keyPrefix the key prefix
+     * @return the removed keys
+     */
+    List<String> removeKeyStartsWith(String keyPrefix) {
+        List<String> result = new ArrayList<>();
+        ConcurrentNavigableMap<String, Location> tail = index.tailMap(keyPrefix);
+        for (Map.Entry<String, Location> entry : tail.entrySet()) {
+            if (!entry.getKey().startsWith(keyPrefix)) {
+                break;
+            }
+            if (index.remove(entry.getKey(), entry.getValue())) {
+                size.decrementAndGet();
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries.
+     *
+     * @return the removed keys
+     */
+    List<String> clear() {
+        List<String> result = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                if (index.remove(entry.getKey(), entry.getValue())) {
+                    size.decrementAndGet();
+                    result.add(entry.getKey());
+                }
+            }
+            for (Slab slab : slabs) {
+                slab.reset();
+            }
+            current = null;
+            oldest = 0;
+            pending.clear();
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private byte[] read(Location location) {
+        byte[] bytes = new byte[location.length];
+        long stamp = lock.tryOptimisticRead();
+        boolean valid = copy(location, bytes);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                valid = copy(location, bytes);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return valid ? bytes : null;
+    }
+
+    private static boolean copy(Location location, byte[] bytes) {
+        if (location.slab.generation != location.generation) {
+            // the slab was reused after the value had been written
+            return false;
+        }
+        ByteBuffer source = location.slab.buffer.duplicate();
+        source.position(location.offset);
+        source.get(bytes);
+        return true;
+    }
+
+    private Slab nextSlab() {
+        if (slabs.size() < maximumSlabs) {
+            Slab slab = new Slab(ByteBuffer.allocateDirect(slabBytes));
+            slabs.add(slab);
+            return slab;
+        }
+        Slab slab = slabs.get(oldest);
+        oldest = (oldest + 1) % slabs.size();
+        for (String key : slab.keys) {
+            Location location = index.get(key);
+            if (location != null && location.slab == slab && index.remove(key, location)) {
+                size.decrementAndGet();
+                evictionListener.accept(key);
+            }
+        }
+        slab.reset();
+        return slab;
+    }
+
+    private static final class Slab {
+        final ByteBuffer buffer;
+        final List<String> keys = new ArrayList<>();
+        int position;
+        int generation;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void reset() {
+            keys.clear();
+            position = 0;
+            generation++;
+        }
+    }
+
+    private static final class Location {
+        final Slab slab;
+        final int generation;
+        final int offset;
+        final int length;
+        final long duration;
+        final long cachedMillis;
+        final String[] tags;
+        // the entry of a reservation which is not written yet, null once written
+        final CacheObject pending;
+
+        Location(Slab slab, int generation, int offset, int length, long duration, long cachedMillis, String[] tags) {
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.duration = duration;
+            this.cachedMillis = cachedMillis;
+            this.tags = tags;
+            this.pending = null;
+        }
+
+        Location(CacheObject pending) {
+            this.slab = null;
+            this.generation = 0;
+            this.offset = 0;
+            this.length = 0;
+            this.duration = pending.getDuration();
+            this.cachedMillis = pending.getCachedMillis();
+            this.tags = pending.getTags();
+            this.pending = pending;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package net.bndy.lib.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy, striped buffer of recent reads.
+ * <p>
+ * Readers only record what they touched and never take the eviction lock; the records are
+ * replayed against the eviction policy in batches by whoever holds the lock. When a stripe is
+ * full or contended the record is dropped, which only makes the policy slightly less accurate.
+ */
+final class ReadBuffer {
+
+    private static final int BUFFER_SIZE = 32;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    ReadBuffer() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * Records a read.
+     *
+     * @param cache the entry which was read
+     * @return {@code true} if the stripe is full and should be drained
+     */
+    boolean offer(CacheObject cache) {
+        Stripe stripe = stripes[probe() & stripeMask];
+        long head = stripe.readCounter;
+        long tail = stripe.writeCounter.get();
+        long size = tail - head;
+        if (size >= BUFFER_SIZE) {
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.buffer.lazySet((int) (tail & BUFFER_MASK), cache);
+            return size + 1 >= BUFFER_SIZE;
+        }
+        return false;
+    }
+
+    /**
+     * Replays the recorded reads, must be called under the eviction lock.
+     *
+     * @param consumer the consumer of each recorded read
+     */
+    void drainTo(Consumer<CacheObject> consumer) {
+        for (Stripe stripe : stripes) {
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & BUFFER_MASK);
+                CacheObject cache = stripe.buffer.get(index);
+                if (cache == null) {
+                    // the writer claimed the slot but has not published yet
+                    break;
+                }
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(cache);
+            }
+            stripe.readCounter = head;
+        }
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe {
+        final AtomicLong writeCounter = new AtomicLong();
+        final AtomicReferenceArray<CacheObject> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        volatile long readCounter;
+    }
+}
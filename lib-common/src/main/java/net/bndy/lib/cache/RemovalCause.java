@@ -0,0 +1,28 @@
+package net.bndy.lib.cache;
+
+/**
+ * The reason why an entry left a cache.
+ */
+public enum RemovalCause {
+
+    /**
+     * Removed by {@code remove}, {@code clear}, a prefix removal, a tag invalidation or an
+     * invalidation from another node.
+     */
+    EXPLICIT,
+
+    /**
+     * Overwritten by a put or a refresh of the same key.
+     */
+    REPLACED,
+
+    /**
+     * Its duration has passed.
+     */
+    EXPIRED,
+
+    /**
+     * Evicted to keep the cache within its maximum size or weight.
+     */
+    SIZE
+}
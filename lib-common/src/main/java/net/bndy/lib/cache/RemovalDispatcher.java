@@ -0,0 +1,159 @@
+package net.bndy.lib.cache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers removal notifications to a {@link RemovalListener} off the threads using the cache.
+ * <p>
+ * Notifications are queued, and at most one task per cache drains the queue in batches of up to
+ * {@value #MAX_BATCH}, so the executor sees one task per batch rather than per removal. If the
+ * executor rejects the task, the notifications stay queued until the next removal schedules it
+ * again.
+ * <p>
+ * The queue is bounded. When a slow listener lets it fill up, further notifications are handled
+ * by the {@link RemovalOverflowPolicy}.
+ */
+final class RemovalDispatcher {
+
+    static final int MAX_BATCH = 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(RemovalDispatcher.class.getName());
+
+    private final RemovalListener listener;
+    private final Executor executor;
+    private final RemovalOverflowPolicy overflowPolicy;
+    private final ConcurrentLinkedQueue<RemovalNotification> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore space;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean overflowLogged = new AtomicBoolean();
+
+    /**
+     * Creates the dispatcher.
+     *
+     * @param listener the listener
+     * @param executor the executor running the listener, {@code null} for the default one
+     * @param capacity the maximum count of queued notifications
+     * @param overflowPolicy what to do with a notification when the queue is full
+     */
+    RemovalDispatcher(RemovalListener listener, Executor executor, int capacity,
+                      RemovalOverflowPolicy overflowPolicy) {
+        this.listener = listener;
+        this.executor = executor != null ? executor : DefaultExecutor.INSTANCE;
+        this.overflowPolicy = overflowPolicy;
+        this.space = new Semaphore(capacity);
+    }
+
+    /**
+     * Queues a notification, or applies the overflow policy if the queue is full.
+     *
+     * @param notification the notification
+     */
+    void dispatch(RemovalNotification notification) {
+        if (space.tryAcquire() || overflowPolicy == RemovalOverflowPolicy.BLOCK && awaitSpace()) {
+            queue.offer(notification);
+            schedule();
+            return;
+        }
+        // the queue is full, or the blocked thread was interrupted
+        schedule();
+        if (overflowPolicy == RemovalOverflowPolicy.DROP) {
+            dropped.increment();
+            if (overflowLogged.compareAndSet(false, true)) {
+                LOGGER.warning("The removal notification queue is full, notifications are dropped until the listener catches up");
+            }
+        } else {
+            deliver(notification);
+        }
+    }
+
+    /**
+     * Gets the count of notifications dropped because the queue was full.
+     *
+     * @return the count
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Waits until the queue has room, scheduling the drain meanwhile since an executor which
+     * rejected it is only retried on the next removal.
+     *
+     * @return {@code true} if room was taken, {@code false} if the thread was interrupted
+     */
+    private boolean awaitSpace() {
+        try {
+            do {
+                schedule();
+            } while (!space.tryAcquire(10, TimeUnit.MILLISECONDS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void schedule() {
+        if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            RemovalNotification notification;
+            for (int i = 0; i < MAX_BATCH && (notification = queue.poll()) != null; i++) {
+                space.release();
+                deliver(notification);
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // the next batch, or notifications queued while the flag was still set
+        schedule();
+    }
+
+    private void deliver(RemovalNotification notification) {
+        try {
+            listener.onRemoval(notification);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Removal listener failed for cache key " + notification.getKey(), e);
+        }
+    }
+
+    /**
+     * The bounded daemon pool running the listeners of caches without their own executor. All
+     * its threads are core threads, so it grows up to its maximum before queueing, and they
+     * time out when idle.
+     */
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = newExecutor();
+
+        private static Executor newExecutor() {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-removal");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package net.bndy.lib.cache;
+
+/**
+ * Receives the entries which left a cache, see {@link CacheOptions#setRemovalListener(RemovalListener)}.
+ */
+@FunctionalInterface
+public interface RemovalListener {
+
+    /**
+     * Handles a removed entry. It is called on the removal executor, never while the cache
+     * holds a lock, and exceptions are only logged.
+     *
+     * @param notification the removed entry
+     */
+    void onRemoval(RemovalNotification notification);
+}
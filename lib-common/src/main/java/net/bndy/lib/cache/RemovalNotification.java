@@ -0,0 +1,49 @@
+package net.bndy.lib.cache;
+
+/**
+ * An entry which left a cache, delivered to a {@link RemovalListener}.
+ */
+public final class RemovalNotification {
+
+    private final String key;
+    private final Object value;
+    private final RemovalCause cause;
+
+    RemovalNotification(String key, Object value, RemovalCause cause) {
+        this.key = key;
+        this.value = value;
+        this.cause = cause;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the removed value.
+     *
+     * @return the value, or {@code null} if the entry was in the off-heap tier, which only
+     *         keeps a serialized copy
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    public RemovalCause getCause() {
+        return cause;
+    }
+
+    /**
+     * Checks whether the entry was removed automatically rather than by the application.
+     *
+     * @return {@code true} if it expired or was evicted by size
+     */
+    public boolean wasEvicted() {
+        return cause == RemovalCause.EXPIRED || cause == RemovalCause.SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value + " [" + cause + "]";
+    }
+}
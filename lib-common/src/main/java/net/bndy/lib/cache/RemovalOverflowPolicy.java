@@ -0,0 +1,26 @@
+package net.bndy.lib.cache;
+
+/**
+ * What a cache does with a removal notification when its listener has fallen behind and the
+ * queue of notifications is full, see {@link CacheOptions#setRemovalQueueCapacity(int)}.
+ */
+public enum RemovalOverflowPolicy {
+
+    /**
+     * Discards the notification and counts it in
+     * {@link CacheStats#getDroppedRemovalNotificationCount()}.
+     */
+    DROP,
+
+    /**
+     * Waits until the queue has room. The thread using the cache may hold the eviction lock, so
+     * the listener must not use the cache.
+     */
+    BLOCK,
+
+    /**
+     * Delivers the notification on the thread using the cache, ahead of the queued ones. That
+     * thread may hold the eviction lock, which slows down other writers while the listener runs.
+     */
+    CALLER_RUNS
+}
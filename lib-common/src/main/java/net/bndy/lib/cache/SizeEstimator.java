@@ -0,0 +1,154 @@
+package net.bndy.lib.cache;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import net.bndy.lib.primitive.IntList;
+import net.bndy.lib.primitive.IntSet;
+import net.bndy.lib.primitive.LongList;
+import net.bndy.lib.primitive.LongSet;
+import net.bndy.lib.wrapper.IntegersWrapper;
+import net.bndy.lib.wrapper.LongsWrapper;
+import net.bndy.lib.wrapper.StringsWrapper;
+
+/**
+ * The default {@link Weigher}, which estimates the bytes an entry retains on a 64-bit JVM with
+ * compressed references.
+ * <p>
+ * Strings, boxed primitives, arrays, collections, maps and the wrappers of
+ * {@code net.bndy.lib.wrapper} are measured by their layout. Elements are measured recursively
+ * up to a limited depth, and shared elements are counted every time they appear. Any other
+ * object counts as {@value #DEFAULT_OBJECT_BYTES} bytes, so use a custom weigher for caches
+ * holding large objects of other types.
+ * <p>
+ * A value which is modified while it is measured, such as a collection mutated by another thread,
+ * can't be measured reliably and counts as {@value #DEFAULT_OBJECT_BYTES} bytes.
+ */
+public class SizeEstimator implements Weigher {
+
+    /**
+     * The bytes of an object whose type is not known.
+     */
+    public static final int DEFAULT_OBJECT_BYTES = 64;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    // CacheObject, its node in the map and in the policy
+    private static final int ENTRY_OVERHEAD = 32 + 32 + 40;
+    private static final int MAXIMUM_DEPTH = 8;
+
+    @Override
+    public int weigh(String key, Object value) {
+        long bytes;
+        try {
+            bytes = estimate(value);
+        } catch (ConcurrentModificationException | NoSuchElementException | ArrayIndexOutOfBoundsException e) {
+            bytes = DEFAULT_OBJECT_BYTES;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + estimate(key) + bytes);
+    }
+
+    /**
+     * Estimates the bytes retained by an object.
+     *
+     * @param obj the object
+     * @return the bytes, 0 for {@code null}
+     */
+    public static long estimate(Object obj) {
+        return estimate(obj, 0);
+    }
+
+    private static long estimate(Object obj, int depth) {
+        if (obj == null || obj instanceof Enum || obj instanceof Class) {
+            // shared with the rest of the application
+            return 0;
+        }
+        if (depth > MAXIMUM_DEPTH) {
+            return DEFAULT_OBJECT_BYTES;
+        }
+        if (obj instanceof String) {
+            return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + 2L * ((String) obj).length());
+        }
+        if (obj instanceof Long || obj instanceof Double || obj instanceof Date) {
+            return 24;
+        }
+        if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) {
+            return 16;
+        }
+        if (obj instanceof CharSequence) {
+            return align(OBJECT_HEADER + 8) + align(ARRAY_HEADER + 2L * ((CharSequence) obj).length());
+        }
+        if (obj.getClass().isArray()) {
+            return estimateArray(obj, depth);
+        }
+        if (obj instanceof LongList || obj instanceof LongSet) {
+            // unboxed, a set table being at most half empty
+            long perElement = obj instanceof LongList ? 8 : 16;
+            return align(OBJECT_HEADER + 16) + align(ARRAY_HEADER + perElement * ((Collection<?>) obj).size());
+        }
+        if (obj instanceof IntList || obj instanceof IntSet) {
+            long perElement = obj instanceof IntList ? 4 : 8;
+            return align(OBJECT_HEADER + 16) + align(ARRAY_HEADER + perElement * ((Collection<?>) obj).size());
+        }
+        if (obj instanceof Collection) {
+            Collection<?> collection = (Collection<?>) obj;
+            // the backing array of a list, or the nodes of a set
+            long bytes = 48 + (obj instanceof List ? REFERENCE : 32) * (long) collection.size();
+            for (Object element : collection) {
+                bytes += estimate(element, depth + 1);
+            }
+            return bytes;
+        }
+        if (obj instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) obj;
+            long bytes = 64 + 40L * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+            return bytes;
+        }
+        if (obj instanceof IntegersWrapper) {
+            return 16 + estimate(((IntegersWrapper) obj).getValues(), depth + 1);
+        }
+        if (obj instanceof LongsWrapper) {
+            return 16 + estimate(((LongsWrapper) obj).getValues(), depth + 1);
+        }
+        if (obj instanceof StringsWrapper) {
+            return 16 + estimate(((StringsWrapper) obj).getValues(), depth + 1);
+        }
+        return DEFAULT_OBJECT_BYTES;
+    }
+
+    private static long estimateArray(Object array, int depth) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (!componentType.isPrimitive()) {
+            long bytes = align(ARRAY_HEADER + (long) REFERENCE * length);
+            for (Object element : (Object[]) array) {
+                bytes += estimate(element, depth + 1);
+            }
+            return bytes;
+        }
+        int elementBytes;
+        if (componentType == long.class || componentType == double.class) {
+            elementBytes = 8;
+        } else if (componentType == int.class || componentType == float.class) {
+            elementBytes = 4;
+        } else if (componentType == short.class || componentType == char.class) {
+            elementBytes = 2;
+        } else {
+            elementBytes = 1;
+        }
+        return align(ARRAY_HEADER + (long) elementBytes * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,130 @@
+package net.bndy.lib.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of a {@link CacheEngine}. Every counter is a {@link LongAdder}, which
+ * stripes its updates over cells, so recording never makes threads contend.
+ */
+final class StatsCounter {
+
+    /**
+     * The count of buckets of the load latency histogram, bucket {@code i} counts the loads which
+     * took from {@code 2^i} to {@code 2^(i+1)} microseconds.
+     */
+    static final int LATENCY_BUCKETS = 32;
+
+    private final boolean enabled;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder[] removalCounts = new LongAdder[RemovalCause.values().length];
+    private final LongAdder[] loadLatencies = new LongAdder[LATENCY_BUCKETS];
+
+    /**
+     * Creates the counter.
+     *
+     * @param enabled {@code false} to ignore all records
+     */
+    StatsCounter(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < removalCounts.length; i++) {
+            removalCounts[i] = new LongAdder();
+        }
+        for (int i = 0; i < loadLatencies.length; i++) {
+            loadLatencies[i] = new LongAdder();
+        }
+    }
+
+    void recordHits(int count) {
+        if (enabled) {
+            hitCount.add(count);
+        }
+    }
+
+    void recordMisses(int count) {
+        if (enabled) {
+            missCount.add(count);
+        }
+    }
+
+    void recordLoadSuccess(long loadTime) {
+        if (enabled) {
+            loadSuccessCount.increment();
+            recordLoadTime(loadTime);
+        }
+    }
+
+    void recordLoadFailure(long loadTime) {
+        if (enabled) {
+            loadFailureCount.increment();
+            recordLoadTime(loadTime);
+        }
+    }
+
+    void recordRemoval(RemovalCause cause) {
+        if (enabled) {
+            removalCounts[cause.ordinal()].increment();
+        }
+    }
+
+    long hitCount() {
+        return hitCount.sum();
+    }
+
+    long missCount() {
+        return missCount.sum();
+    }
+
+    long loadSuccessCount() {
+        return loadSuccessCount.sum();
+    }
+
+    long loadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    long totalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    long removalCount(RemovalCause cause) {
+        return removalCounts[cause.ordinal()].sum();
+    }
+
+    long[] loadLatencyHistogram() {
+        long[] latencies = new long[loadLatencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = loadLatencies[i].sum();
+        }
+        return latencies;
+    }
+
+    /**
+     * Takes a snapshot of the counters.
+     *
+     * @param size         the current count of entries on the heap
+     * @param weightedSize the current weight of entries on the heap
+     * @param offHeapSize  the current count of entries off the heap
+     * @param droppedRemovalNotifications the count of removal notifications dropped so far
+     * @return the snapshot
+     */
+    CacheStats snapshot(long size, long weightedSize, long offHeapSize, long droppedRemovalNotifications) {
+        long[] removals = new long[removalCounts.length];
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = removalCounts[i].sum();
+        }
+        return new CacheStats(hitCount(), missCount(), loadSuccessCount(), loadFailureCount(), totalLoadTime(),
+            removals, loadLatencyHistogram(), size, weightedSize, offHeapSize, droppedRemovalNotifications);
+    }
+
+    private void recordLoadTime(long loadTime) {
+        totalLoadTime.add(loadTime);
+        long micros = TimeUnit.NANOSECONDS.toMicros(loadTime);
+        int bucket = micros <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+        loadLatencies[Math.min(bucket, LATENCY_BUCKETS - 1)].increment();
+    }
+}
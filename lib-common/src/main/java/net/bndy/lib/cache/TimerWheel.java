@@ -0,0 +1,166 @@
+package net.bndy.lib.cache;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel which expires entries in amortized O(1) time.
+ * <p>
+ * Each level is a ring of 64 buckets; a bucket of the first level spans 64 milliseconds and
+ * every following level spans 64 times more. An entry is filed by how far away its expiration
+ * is, so advancing the clock only visits the buckets whose time has passed. Entries of a
+ * higher level cascade down when their bucket is visited.
+ * <p>
+ * Not thread-safe, all methods must be called under the eviction lock.
+ */
+final class TimerWheel {
+
+    private static final int[] SHIFT = { 6, 12, 18, 24, 30 };
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private final Node[][] wheel;
+    private final Node overflow = new Node(null);
+    private final Consumer<CacheObject> expirer;
+    private long time;
+
+    /**
+     * Creates the wheel.
+     *
+     * @param expirer the callback removing an expired entry from the cache
+     */
+    TimerWheel(Consumer<CacheObject> expirer) {
+        this.expirer = expirer;
+        this.time = System.currentTimeMillis();
+        this.wheel = new Node[SHIFT.length][BUCKETS];
+        for (Node[] buckets : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new Node(null);
+            }
+        }
+    }
+
+    /**
+     * Gets the count of scheduled entries.
+     *
+     * @return the count
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Synchronizes the schedule with the current mapping of a key.
+     *
+     * @param key     the key which was written or removed
+     * @param current the entry currently mapped in the cache, {@code null} if none
+     */
+    void onChange(String key, CacheObject current) {
+        Node node = nodes.get(key);
+        if (current == null || current.getDuration() <= 0) {
+            if (node != null) {
+                nodes.remove(key);
+                unlink(node);
+            }
+        } else if (node == null) {
+            node = new Node(current);
+            nodes.put(key, node);
+            schedule(node);
+        } else if (node.value != current) {
+            unlink(node);
+            node.value = current;
+            schedule(node);
+        }
+    }
+
+    /**
+     * Advances the clock and expires all entries whose time has passed.
+     *
+     * @param now the current milliseconds since epoch
+     */
+    void advance(long now) {
+        long previous = time;
+        time = now;
+        for (int level = 0; level < SHIFT.length; level++) {
+            long previousTicks = previous >>> SHIFT[level];
+            long currentTicks = now >>> SHIFT[level];
+            if (currentTicks <= previousTicks) {
+                break;
+            }
+            long count = Math.min(currentTicks - previousTicks + 1, BUCKETS);
+            for (long ticks = previousTicks; ticks < previousTicks + count; ticks++) {
+                process(wheel[level][(int) (ticks & BUCKET_MASK)], now);
+            }
+        }
+        if (overflow.next != overflow && now >>> SHIFT[SHIFT.length - 1] > previous >>> SHIFT[SHIFT.length - 1]) {
+            process(overflow, now);
+        }
+        // the current bucket may hold entries which expired within this tick
+        process(wheel[0][(int) ((now >>> SHIFT[0]) & BUCKET_MASK)], now);
+    }
+
+    private void process(Node sentinel, long now) {
+        Node node = sentinel.next;
+        if (node == sentinel) {
+            return;
+        }
+        // detach the whole bucket first so that rescheduled entries are not visited twice
+        sentinel.prev.next = null;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        while (node != null) {
+            Node next = node.next;
+            node.prev = null;
+            node.next = null;
+            if (node.value.isExpired(now)) {
+                nodes.remove(node.value.getKey());
+                expirer.accept(node.value);
+            } else {
+                schedule(node);
+            }
+            node = next;
+        }
+    }
+
+    private void schedule(Node node) {
+        long expiration = node.value.getExpirationMillis();
+        long delay = Math.max(0, expiration - time);
+        Node sentinel = overflow;
+        for (int level = 0; level < SHIFT.length; level++) {
+            if (delay < (1L << (SHIFT[level] + 6))) {
+                long ticks = Math.max(expiration, time) >>> SHIFT[level];
+                sentinel = wheel[level][(int) (ticks & BUCKET_MASK)];
+                break;
+            }
+        }
+        node.next = sentinel;
+        node.prev = sentinel.prev;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    private static final class Node {
+        CacheObject value;
+        Node prev;
+        Node next;
+
+        Node(CacheObject value) {
+            this.value = value;
+            if (value == null) {
+                // a sentinel of a circular bucket list
+                this.prev = this;
+                this.next = this;
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package net.bndy.lib.cache;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * A size or weight bounded W-TinyLFU eviction policy.
+ * <p>
+ * New entries enter a small LRU window (1% of the capacity). Entries leaving the window
+ * compete with the least recently used entry of the main space and only the one which the
+ * {@link FrequencySketch} estimates as more popular stays, so one-hit wonders of a scan can't
+ * flush the hot set. The main space is a segmented LRU: entries read while on probation get
+ * promoted to the protected segment (80% of the main space).
+ * <p>
+ * Without a {@link Weigher} each entry weighs 1, so the bound is a count of entries. With one,
+ * every segment is measured in weight. The entries are weighed by the cache before they are
+ * mapped, on the writing thread, so the weigher never runs under the eviction lock.
+ * <p>
+ * Not thread-safe, all methods must be called under the eviction lock.
+ */
+final class TinyLfuPolicy {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private final AccessOrderQueue window = new AccessOrderQueue();
+    private final AccessOrderQueue probation = new AccessOrderQueue();
+    private final AccessOrderQueue protectedQueue = new AccessOrderQueue();
+    private final FrequencySketch sketch;
+    private final boolean weighted;
+    private final Consumer<CacheObject> evictor;
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    // written under the eviction lock, read without it by the statistics
+    private volatile long size;
+    private long windowSize;
+    private long protectedSize;
+
+    /**
+     * Creates the policy.
+     *
+     * @param maximum  the maximum entries, or the maximum weight if weighted
+     * @param weighted whether to measure the entries by {@link CacheObject#getWeight()}
+     *                 instead of counting them
+     * @param evictor  the callback removing a victim from the cache
+     */
+    TinyLfuPolicy(long maximum, boolean weighted, Consumer<CacheObject> evictor) {
+        this.maximum = maximum;
+        long mainMaximum = maximum * 99 / 100;
+        this.windowMaximum = Math.max(1, maximum - mainMaximum);
+        this.protectedMaximum = mainMaximum * 80 / 100;
+        // the entry count of a weighted cache is unknown, the sketch grows with it
+        this.sketch = new FrequencySketch(weighted ? 0 : maximum);
+        this.weighted = weighted;
+        this.evictor = evictor;
+    }
+
+    /**
+     * Gets the count of entries tracked, or their total weight if there is a weigher. It may be
+     * read without the eviction lock.
+     *
+     * @return the count or the weight
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Records a read of an entry.
+     *
+     * @param cache the entry which was read
+     */
+    void onAccess(CacheObject cache) {
+        sketch.increment(cache.getKey());
+        Node node = nodes.get(cache.getKey());
+        if (node != null && node.value == cache) {
+            touch(node);
+        }
+    }
+
+    /**
+     * Synchronizes the policy with the current mapping of a key.
+     *
+     * @param key     the key which was written or removed
+     * @param current the entry currently mapped in the cache, {@code null} if none
+     */
+    void onChange(String key, CacheObject current) {
+        Node node = nodes.get(key);
+        if (current == null) {
+            if (node != null) {
+                unlink(node);
+            }
+        } else if (node == null) {
+            node = new Node(key, current, weigh(current));
+            nodes.put(key, node);
+            if (weighted) {
+                sketch.ensureCapacity(nodes.size());
+            }
+            sketch.increment(key);
+            window.addLast(node);
+            windowSize += node.weight;
+            size += node.weight;
+        } else if (node.value != current) {
+            sketch.increment(key);
+            int weight = weigh(current);
+            int delta = weight - node.weight;
+            node.value = current;
+            node.weight = weight;
+            size += delta;
+            if (node.queue == WINDOW) {
+                windowSize += delta;
+            } else if (node.queue == PROTECTED) {
+                protectedSize += delta;
+            }
+            touch(node);
+        }
+    }
+
+    /**
+     * Evicts entries until the size fits the maximum.
+     */
+    void evict() {
+        Node candidate = null;
+        while (windowSize > windowMaximum) {
+            Node node = window.peekFirst();
+            if (node.weight > maximum) {
+                // could never fit, don't let it flush the main space
+                evictNode(node);
+                continue;
+            }
+            window.remove(node);
+            windowSize -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (size > maximum) {
+            Node victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedQueue.peekFirst() != null ? protectedQueue.peekFirst() : window.peekFirst();
+            }
+            if (candidate == null || candidate == victim) {
+                if (candidate == victim) {
+                    candidate = null;
+                }
+                evictNode(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+            } else {
+                Node next = candidate.next;
+                evictNode(candidate);
+                candidate = next;
+            }
+        }
+    }
+
+    private int weigh(CacheObject cache) {
+        return weighted ? cache.getWeight() : 1;
+    }
+
+    private void touch(Node node) {
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            protectedSize += node.weight;
+            while (protectedSize > protectedMaximum) {
+                Node demoted = protectedQueue.pollFirst();
+                protectedSize -= demoted.weight;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protectedQueue.moveToLast(node);
+        }
+    }
+
+    private void evictNode(Node node) {
+        unlink(node);
+        evictor.accept(node.value);
+    }
+
+    private void unlink(Node node) {
+        nodes.remove(node.key);
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowSize -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protectedQueue.remove(node);
+            protectedSize -= node.weight;
+        }
+        size -= node.weight;
+    }
+
+    private static final class Node {
+        final String key;
+        CacheObject value;
+        int weight;
+        int queue = WINDOW;
+        Node prev;
+        Node next;
+
+        Node(String key, CacheObject value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list ordered from least to most recently used.
+     */
+    private static final class AccessOrderQueue {
+        private Node head;
+        private Node tail;
+
+        Node peekFirst() {
+            return head;
+        }
+
+        Node pollFirst() {
+            Node node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.bndy.lib.cache;
+
+/**
+ * Calculates the weight of cache entries, see {@link CacheOptions#setMaximumWeight(long)}.
+ */
+@FunctionalInterface
+public interface Weigher {
+
+    /**
+     * Weighs an entry. It is called once each time the value of a key changes, on the thread
+     * writing it and before it is mapped, and its result must not change while the entry is
+     * cached. An exception fails the write.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the weight, a negative weight counts as 0
+     */
+    int weigh(String key, Object value);
+}
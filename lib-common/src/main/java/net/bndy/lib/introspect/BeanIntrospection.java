@@ -0,0 +1,335 @@
+package net.bndy.lib.introspect;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import net.bndy.lib.ClassMetadata;
+
+/**
+ * The properties of a model class with their access and annotations, generated at compile time
+ * for the classes annotated with {@link Introspected} and picked up at runtime by
+ * {@link net.bndy.lib.BeanMapper}, {@link net.bndy.lib.ReflectionHelper} and
+ * {@link net.bndy.lib.AnnotationHelper}.
+ * <p>
+ * The properties are the fields of the class and of its superclasses, indexed in the order and
+ * with the precedence of {@link ClassMetadata}. A property is read and written directly when
+ * the field is visible to the generated class. Otherwise, e.g. for a private field, it has no
+ * access here and the callers fall back on reflection for it. Getters and setters are never
+ * called, so a property holds the same value whether it is reached through the generated code or
+ * by reflection. The same goes for the annotations whose values cannot be written as constants.
+ * <p>
+ * The generated class is named after the binary name of the model class with the suffix
+ * {@value #SUFFIX}, e.g. {@code com.example.User__Introspection}.
+ *
+ * @param <T> the model type
+ */
+public abstract class BeanIntrospection<T> {
+
+    /**
+     * The suffix of the names of the generated classes.
+     */
+    public static final String SUFFIX = "__Introspection";
+
+    /**
+     * The access flag of a readable property.
+     */
+    protected static final int READ = 1;
+
+    /**
+     * The access flag of a writable property.
+     */
+    protected static final int WRITE = 2;
+
+    private static final ClassValue<Optional<BeanIntrospection<?>>> CACHE = new ClassValue<Optional<BeanIntrospection<?>>>() {
+        @Override
+        protected Optional<BeanIntrospection<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(load(type));
+        }
+    };
+
+    private final Class<T> type;
+    private final List<String> names;
+    private final Class<?>[] types;
+    private final int[] access;
+    private final boolean instantiable;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Map<Class<? extends Annotation>, Annotation>[] annotations;
+    private final Set<String>[] reflectiveAnnotations;
+
+    /**
+     * Creates the introspection, called by the generated constructor.
+     *
+     * @param type         the model class
+     * @param names        the property names
+     * @param types        the property types
+     * @param access       the access flags of each property, {@link #READ} and {@link #WRITE}
+     * @param instantiable whether {@link #instantiate()} creates instances
+     */
+    @SuppressWarnings("unchecked")
+    protected BeanIntrospection(Class<T> type, String[] names, Class<?>[] types, int[] access, boolean instantiable) {
+        this.type = type;
+        this.names = Collections.unmodifiableList(Arrays.asList(names));
+        this.types = types;
+        this.access = access;
+        this.instantiable = instantiable;
+        this.annotations = (Map<Class<? extends Annotation>, Annotation>[]) new Map<?, ?>[names.length];
+        this.reflectiveAnnotations = (Set<String>[]) new Set<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            indexes.putIfAbsent(names[i], i);
+        }
+    }
+
+    /**
+     * Gets the generated introspection of a class.
+     *
+     * @param type the class
+     * @param <T>  the type
+     * @return the introspection, or {@code null} if none was generated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanIntrospection<T> of(Class<T> type) {
+        return (BeanIntrospection<T>) CACHE.get(type).orElse(null);
+    }
+
+    private static BeanIntrospection<?> load(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.getClassLoader() == null) {
+            return null;
+        }
+        try {
+            Class<?> generated = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+            if (!BeanIntrospection.class.isAssignableFrom(generated)) {
+                return null;
+            }
+            BeanIntrospection<?> introspection = (BeanIntrospection<?>) generated.getConstructor().newInstance();
+            return introspection.getType() == type ? introspection : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can not load " + type.getName() + SUFFIX, e);
+        }
+    }
+
+    /**
+     * Gets the model class.
+     *
+     * @return the class
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the property names.
+     *
+     * @return the unmodifiable list of names in index order
+     */
+    public List<String> getPropertyNames() {
+        return names;
+    }
+
+    /**
+     * Gets the index of a property.
+     *
+     * @param name the property name
+     * @return the index, or -1 if none
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets the type of a property.
+     *
+     * @param index the property index
+     * @return the type
+     */
+    public Class<?> getPropertyType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Checks whether a property can be read by {@link #get(Object, int)}.
+     *
+     * @param index the property index
+     * @return {@code true} if readable
+     */
+    public boolean isReadable(int index) {
+        return (access[index] & READ) != 0;
+    }
+
+    /**
+     * Checks whether a property can be written by {@link #set(Object, int, Object)}.
+     *
+     * @param index the property index
+     * @return {@code true} if writable
+     */
+    public boolean isWritable(int index) {
+        return (access[index] & WRITE) != 0;
+    }
+
+    /**
+     * Checks whether {@link #newInstance()} can create instances, which requires a constructor
+     * without parameters visible to the generated class.
+     *
+     * @return {@code true} if instantiable
+     */
+    public boolean isInstantiable() {
+        return instantiable;
+    }
+
+    /**
+     * Creates an instance by its constructor without parameters.
+     *
+     * @return the instance
+     * @throws UnsupportedOperationException if not instantiable
+     */
+    public T newInstance() {
+        if (!instantiable) {
+            throw new UnsupportedOperationException(type.getName() + " is not instantiable by " + getClass().getName());
+        }
+        return instantiate();
+    }
+
+    /**
+     * Gets the value of a property.
+     *
+     * @param bean  the instance
+     * @param index the property index
+     * @return the value, boxed if primitive
+     * @throws UnsupportedOperationException if the property is not readable
+     */
+    public Object get(T bean, int index) {
+        if (!isReadable(index)) {
+            throw new UnsupportedOperationException(names.get(index) + " is not readable by " + getClass().getName());
+        }
+        return read(bean, index);
+    }
+
+    /**
+     * Sets the value of a property, the value is not converted.
+     *
+     * @param bean  the instance
+     * @param index the property index
+     * @param value the value, of the property type or its wrapper if primitive
+     * @throws UnsupportedOperationException if the property is not writable
+     * @throws IllegalArgumentException      if the value is not of the property type
+     */
+    public void set(T bean, int index, Object value) {
+        if (!isWritable(index)) {
+            throw new UnsupportedOperationException(names.get(index) + " is not writable by " + getClass().getName());
+        }
+        if (value == null && types[index].isPrimitive()) {
+            throw new IllegalArgumentException("Can not set " + types[index].getName() + " property " + names.get(index) + " to null");
+        }
+        try {
+            write(bean, index, value);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Can not set " + types[index].getName() + " property " + names.get(index)
+                + " to " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Gets the values of the readable properties.
+     *
+     * @param bean the instance
+     * @return the values by property name in index order
+     */
+    public Map<String, Object> toMap(T bean) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (isReadable(i) && !result.containsKey(names.get(i))) {
+                result.put(names.get(i), read(bean, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets an annotation of the field of a property. Annotations whose values are not constants
+     * are read from {@link ClassMetadata}.
+     *
+     * @param index           the property index
+     * @param annotationClass the annotation class
+     * @param <A>             the annotation type
+     * @return the annotation, or {@code null} if not annotated
+     */
+    public <A extends Annotation> A getAnnotation(int index, Class<A> annotationClass) {
+        Map<Class<? extends Annotation>, Annotation> values = annotations[index];
+        if (values != null && values.containsKey(annotationClass)) {
+            return annotationClass.cast(values.get(annotationClass));
+        }
+        Set<String> reflective = reflectiveAnnotations[index];
+        if (reflective != null && reflective.contains(annotationClass.getName())) {
+            return ClassMetadata.of(type).getFieldAnnotation(names.get(index), annotationClass);
+        }
+        return null;
+    }
+
+    /**
+     * Records an annotation of the field of a property, called by the generated constructor.
+     *
+     * @param index           the property index
+     * @param annotationClass the annotation class
+     * @param namesAndValues  the names and values of all its members, defaults included, in
+     *                        pairs
+     */
+    protected void annotate(int index, Class<? extends Annotation> annotationClass, Object... namesAndValues) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        if (annotations[index] == null) {
+            annotations[index] = new HashMap<>();
+        }
+        annotations[index].put(annotationClass, SynthesizedAnnotation.create(annotationClass, values));
+    }
+
+    /**
+     * Records an annotation of the field of a property which is read by reflection, called by the
+     * generated constructor.
+     *
+     * @param index              the property index
+     * @param annotationTypeName the binary name of the annotation type
+     */
+    protected void annotateReflectively(int index, String annotationTypeName) {
+        if (reflectiveAnnotations[index] == null) {
+            reflectiveAnnotations[index] = new HashSet<>();
+        }
+        reflectiveAnnotations[index].add(annotationTypeName);
+    }
+
+    /**
+     * Creates an instance, only called if instantiable.
+     *
+     * @return the instance
+     */
+    protected abstract T instantiate();
+
+    /**
+     * Reads a property, only called if readable.
+     *
+     * @param bean  the instance
+     * @param index the property index
+     * @return the value
+     */
+    protected abstract Object read(T bean, int index);
+
+    /**
+     * Writes a property, only called if writable and never with {@code null} for a primitive.
+     *
+     * @param bean  the instance
+     * @param index the property index
+     * @param value the value
+     */
+    protected abstract void write(T bean, int index, Object value);
+}
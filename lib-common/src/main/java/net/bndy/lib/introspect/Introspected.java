@@ -0,0 +1,21 @@
+package net.bndy.lib.introspect;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class whose {@link BeanIntrospection} is generated at compile time by the
+ * annotation processor of {@code lib-processor}, so that mapping and annotation lookups of the
+ * class need no reflection. Without the processor the annotation has no effect and the class is
+ * handled by reflection as any other.
+ * <p>
+ * The class must be top-level or a static nested class, and not private.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Introspected {
+}
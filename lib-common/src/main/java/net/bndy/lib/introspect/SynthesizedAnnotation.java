@@ -0,0 +1,160 @@
+package net.bndy.lib.introspect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An annotation instance built from the member values generated at compile time, which behaves
+ * as the instances of the JDK regarding {@link Annotation#equals(Object)},
+ * {@link Annotation#hashCode()} and the copies of array values.
+ */
+final class SynthesizedAnnotation implements InvocationHandler {
+
+    private final Class<? extends Annotation> type;
+    private final Map<String, Object> values;
+
+    private SynthesizedAnnotation(Class<? extends Annotation> type, Map<String, Object> values) {
+        this.type = type;
+        this.values = values;
+    }
+
+    /**
+     * Creates an annotation.
+     *
+     * @param type   the annotation type
+     * @param values the values of all members by name
+     * @param <A>    the annotation type
+     * @return the annotation
+     */
+    static <A extends Annotation> A create(Class<A> type, Map<String, Object> values) {
+        ClassLoader loader = type.getClassLoader() != null ? type.getClassLoader() : SynthesizedAnnotation.class.getClassLoader();
+        return type.cast(Proxy.newProxyInstance(loader, new Class<?>[] { type }, new SynthesizedAnnotation(type, values)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (args != null && args.length == 1 && "equals".equals(name)) {
+            return equalTo(args[0]);
+        }
+        if (args == null || args.length == 0) {
+            switch (name) {
+                case "annotationType":
+                    return type;
+                case "hashCode":
+                    return hash();
+                case "toString":
+                    return describe();
+                default:
+                    Object value = values.get(name);
+                    return value != null && value.getClass().isArray() ? copy(value) : value;
+            }
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private boolean equalTo(Object other) {
+        if (!type.isInstance(other)) {
+            return false;
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Object otherValue;
+            try {
+                Method member = type.getMethod(entry.getKey());
+                member.setAccessible(true);
+                otherValue = member.invoke(other);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+            if (!valueEquals(entry.getValue(), otherValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the hash code as specified by {@link Annotation#hashCode()}.
+     */
+    private int hash() {
+        int hash = 0;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            hash += (127 * entry.getKey().hashCode()) ^ valueHash(entry.getValue());
+        }
+        return hash;
+    }
+
+    private String describe() {
+        StringBuilder sb = new StringBuilder("@").append(type.getName()).append('(');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            Object value = entry.getValue();
+            sb.append(entry.getKey()).append('=').append(value.getClass().isArray() ? arrayToString(value) : value);
+        }
+        return sb.append(')').toString();
+    }
+
+    private static boolean valueEquals(Object a, Object b) {
+        if (a.getClass().isArray()) {
+            if (a instanceof Object[]) {
+                return b instanceof Object[] && Arrays.equals((Object[]) a, (Object[]) b);
+            }
+            if (b == null || b.getClass() != a.getClass()) {
+                return false;
+            }
+            int length = Array.getLength(a);
+            if (length != Array.getLength(b)) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Array.get(a, i).equals(Array.get(b, i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private static int valueHash(Object value) {
+        if (!value.getClass().isArray()) {
+            return value.hashCode();
+        }
+        if (value instanceof Object[]) {
+            return Arrays.hashCode((Object[]) value);
+        }
+        // as Arrays.hashCode of the primitive arrays
+        int hash = 1;
+        for (int i = 0, length = Array.getLength(value); i < length; i++) {
+            hash = 31 * hash + Array.get(value, i).hashCode();
+        }
+        return hash;
+    }
+
+    private static String arrayToString(Object array) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0, length = Array.getLength(array); i < length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Array.get(array, i));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static Object copy(Object array) {
+        int length = Array.getLength(array);
+        Object result = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+}
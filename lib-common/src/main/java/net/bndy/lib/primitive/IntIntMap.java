@@ -0,0 +1,308 @@
+package net.bndy.lib.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A hash map of {@code int} keys to {@code int} values, stored in an open-addressing table
+ * with linear probing in plain {@code int[]} arrays, intended for counters and id lookups
+ * without boxing.
+ * <p>
+ * Jackson reads and writes it as a JSON object whose field names are the keys. Not thread-safe.
+ */
+@JsonSerialize(using = PrimitiveJson.IntIntMapSerializer.class)
+@JsonDeserialize(using = PrimitiveJson.IntIntMapDeserializer.class)
+public class IntIntMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Receives the entries of a map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * Receives an entry.
+         *
+         * @param key   the key
+         * @param value the value
+         */
+        void accept(int key, int value);
+    }
+
+    // 0 marks the free slots, so the key 0 is held apart
+    private int[] keys;
+    private int[] values;
+    private boolean containsZeroKey;
+    private int zeroValue;
+    private int size;
+
+    public IntIntMap() {
+        this(8);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @return the value, or 0 if absent
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if absent
+     * @return the value, or {@code defaultValue} if absent
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(keys, key);
+        return keys[index] == key ? values[index] : defaultValue;
+    }
+
+    /**
+     * Checks whether a key is mapped.
+     *
+     * @param key the key
+     * @return {@code true} if mapped
+     */
+    public boolean containsKey(int key) {
+        return key == 0 ? containsZeroKey : keys[indexOf(keys, key)] == key;
+    }
+
+    /**
+     * Puts a value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = indexOf(keys, key);
+        if (keys[index] == key) {
+            values[index] = value;
+            return;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size * 4L >= keys.length * 3L) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds to a value, an absent value counts as 0.
+     *
+     * @param key   the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int addTo(int key, int delta) {
+        int value = getOrDefault(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     * @return {@code true} if a value was removed
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = false;
+            zeroValue = 0;
+        } else {
+            int index = indexOf(keys, key);
+            if (keys[index] != key) {
+                return false;
+            }
+            delete(index);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the count of entries.
+     *
+     * @return the count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return {@code true} if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        containsZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * Gets the keys, in no particular order.
+     *
+     * @return a new list of the keys
+     */
+    public IntList keys() {
+        IntList result = new IntList(size);
+        forEach((key, value) -> result.addInt(key));
+        return result;
+    }
+
+    /**
+     * Performs an action for each entry, in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEach(EntryConsumer action) {
+        if (containsZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof IntIntMap)) {
+            return false;
+        }
+        IntIntMap other = (IntIntMap) o;
+        if (other.size != size) {
+            return false;
+        }
+        boolean[] equal = {true};
+        forEach((key, value) -> {
+            if (equal[0] && (!other.containsKey(key) || other.get(key) != value)) {
+                equal[0] = false;
+            }
+        });
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        forEach((key, value) -> hash[0] += Integer.hashCode(key) ^ Integer.hashCode(value));
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Deletes a slot by shifting back the following entries of its probe sequence, so that no
+     * tombstones are needed.
+     */
+    private void delete(int index) {
+        int mask = keys.length - 1;
+        int i = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == 0) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of a key, or the free slot where it belongs.
+     */
+    private static int indexOf(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(8, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
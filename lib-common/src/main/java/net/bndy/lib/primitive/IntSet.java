@@ -0,0 +1,300 @@
+package net.bndy.lib.primitive;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A hash set of {@code int} values, stored in an open-addressing table with linear probing in a
+ * plain {@code int[]}.
+ * <p>
+ * The primitive methods, such as {@link #addInt(int)} and {@link #containsInt(int)}, never
+ * box. It is also a {@code Set<Integer>} for existing APIs, whose methods box on each call. Jackson
+ * reads and writes it as a JSON array of numbers. Not thread-safe.
+ */
+@JsonSerialize(using = PrimitiveJson.IntSetSerializer.class)
+@JsonDeserialize(using = PrimitiveJson.IntSetDeserializer.class)
+public class IntSet extends AbstractSet<Integer> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 0 marks the free slots, so the value 0 is tracked by a flag
+    private int[] table;
+    private boolean containsZero;
+    private int size;
+    private int modCount;
+
+    public IntSet() {
+        this(8);
+    }
+
+    public IntSet(int expectedSize) {
+        this.table = new int[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * Creates a set of values.
+     *
+     * @param values the values
+     * @return the set
+     */
+    public static IntSet of(int... values) {
+        IntSet set = new IntSet(values.length);
+        for (int value : values) {
+            set.addInt(value);
+        }
+        return set;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return {@code true} if the value was absent
+     */
+    public boolean addInt(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+        } else {
+            int index = indexOf(table, value);
+            if (table[index] == value) {
+                return false;
+            }
+            table[index] = value;
+            if ((size + 1) * 4L >= table.length * 3L) {
+                rehash(table.length * 2);
+            }
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Checks whether the set contains a value.
+     *
+     * @param value the value
+     * @return {@code true} if contained
+     */
+    public boolean containsInt(int value) {
+        return value == 0 ? containsZero : table[indexOf(table, value)] == value;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value
+     * @return {@code true} if the value was present
+     */
+    public boolean removeInt(int value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+        } else {
+            int index = indexOf(table, value);
+            if (table[index] != value) {
+                return false;
+            }
+            delete(index);
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Performs an action for each value, in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEachInt(IntConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (int value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Copies the values into a new array, in no particular order.
+     *
+     * @return the array
+     */
+    public int[] toIntArray() {
+        int[] result = new int[size];
+        int i = containsZero ? 1 : 0;
+        for (int value : table) {
+            if (value != 0) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return addInt(value);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeInt((Integer) o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        IntSet kept = new IntSet(size);
+        forEachInt(value -> {
+            if (c.contains(value)) {
+                kept.addInt(value);
+            }
+        });
+        if (kept.size == size) {
+            return false;
+        }
+        table = kept.table;
+        containsZero = kept.containsZero;
+        size = kept.size;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        table = new int[tableSizeFor(0)];
+        containsZero = false;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private final int expectedModCount = modCount;
+            private int next = containsZero ? -1 : advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < table.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = next < 0 ? 0 : table[next];
+                next = advance(next + 1);
+                return value;
+            }
+
+            private int advance(int from) {
+                int i = from;
+                while (i < table.length && table[i] == 0) {
+                    i++;
+                }
+                return i;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int value : table) {
+            hash += Integer.hashCode(value);
+        }
+        return hash;
+    }
+
+    /**
+     * Deletes a slot by shifting back the following entries of its probe sequence, so that no
+     * tombstones are needed.
+     */
+    private void delete(int index) {
+        int mask = table.length - 1;
+        int i = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (table[j] == 0) {
+                break;
+            }
+            int home = hash(table[j]) & mask;
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        for (int value : old) {
+            if (value != 0) {
+                table[indexOf(table, value)] = value;
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of a value, or the free slot where it belongs.
+     */
+    private static int indexOf(int[] table, int value) {
+        int mask = table.length - 1;
+        int i = hash(value) & mask;
+        while (table[i] != 0 && table[i] != value) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(8, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
@@ -0,0 +1,320 @@
+package net.bndy.lib.primitive;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A growable list of {@code long} values backed by a {@code long[]}, which costs 8 bytes per
+ * element instead of a reference plus a {@link Long} of 16 to 24 bytes.
+ * <p>
+ * The primitive methods, such as {@link #getLong(int)} and {@link #addLong(long)}, never box. It
+ * is also a {@code List<Long>} for existing APIs, whose methods box on each call. Jackson
+ * reads and writes it as a JSON array of numbers without boxing. Not thread-safe.
+ */
+@JsonSerialize(using = PrimitiveJson.LongListSerializer.class)
+@JsonDeserialize(using = PrimitiveJson.LongListDeserializer.class)
+public class LongList extends AbstractList<Long> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] EMPTY = {};
+
+    private long[] elements;
+    private int size;
+
+    public LongList() {
+        this.elements = EMPTY;
+    }
+
+    public LongList(int initialCapacity) {
+        this.elements = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    /**
+     * Creates a list of values.
+     *
+     * @param values the values, which are copied
+     * @return the list
+     */
+    public static LongList of(long... values) {
+        LongList list = new LongList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param index the index
+     * @return the value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Replaces a value.
+     *
+     * @param index the index
+     * @param value the value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long setLong(int index, long value) {
+        checkIndex(index);
+        long previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    /**
+     * Appends a value.
+     *
+     * @param value the value
+     */
+    public void addLong(long value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    /**
+     * Appends values.
+     *
+     * @param values the values
+     */
+    public void addAll(long... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+        modCount++;
+    }
+
+    /**
+     * Removes the value at an index.
+     *
+     * @param index the index
+     * @return the removed value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long removeLongAt(int index) {
+        checkIndex(index);
+        long previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Gets the index of the first occurrence of a value.
+     *
+     * @param value the value
+     * @return the index, or -1 if absent
+     */
+    public int indexOfLong(long value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the list contains a value.
+     *
+     * @param value the value
+     * @return {@code true} if contained
+     */
+    public boolean containsLong(long value) {
+        return indexOfLong(value) >= 0;
+    }
+
+    /**
+     * Performs an action for each value in order.
+     *
+     * @param action the action
+     */
+    public void forEachLong(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    /**
+     * Sorts the values in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+        modCount++;
+    }
+
+    /**
+     * Copies the values into a new array.
+     *
+     * @return the array
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Gets a stream of the values.
+     *
+     * @return the stream
+     */
+    public LongStream longStream() {
+        return Arrays.stream(elements, 0, size);
+    }
+
+    /**
+     * Makes room for the specified count of values.
+     *
+     * @param capacity the count of values
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the size.
+     */
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long element) {
+        return setLong(index, element);
+    }
+
+    @Override
+    public boolean add(Long element) {
+        addLong(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Long element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> c) {
+        if (c instanceof LongList) {
+            LongList other = (LongList) c;
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.elements, 0, elements, size, other.size);
+            size += other.size;
+            modCount++;
+            return other.size > 0;
+        }
+        ensureCapacity(size + c.size());
+        return super.addAll(c);
+    }
+
+    @Override
+    public Long remove(int index) {
+        return removeLongAt(index);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && containsLong((Long) o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Long ? indexOfLong((Long) o) : -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LongList) {
+            LongList other = (LongList) o;
+            if (other.size != size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (elements[i] != other.elements[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 4 + 2).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void grow(int minimum) {
+        int capacity = Math.max(minimum, elements.length + (elements.length >> 1) + 8);
+        elements = Arrays.copyOf(elements, capacity);
+    }
+}
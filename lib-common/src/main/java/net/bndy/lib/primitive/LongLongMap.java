@@ -0,0 +1,308 @@
+package net.bndy.lib.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A hash map of {@code long} keys to {@code long} values, stored in an open-addressing table
+ * with linear probing in plain {@code long[]} arrays, intended for counters and id lookups
+ * without boxing. See {@link net.bndy.lib.cache.LongCache} for a thread-safe, expiring variant.
+ * <p>
+ * Jackson reads and writes it as a JSON object whose field names are the keys. Not thread-safe.
+ */
+@JsonSerialize(using = PrimitiveJson.LongLongMapSerializer.class)
+@JsonDeserialize(using = PrimitiveJson.LongLongMapDeserializer.class)
+public class LongLongMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Receives the entries of a map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * Receives an entry.
+         *
+         * @param key   the key
+         * @param value the value
+         */
+        void accept(long key, long value);
+    }
+
+    // 0 marks the free slots, so the key 0 is held apart
+    private long[] keys;
+    private long[] values;
+    private boolean containsZeroKey;
+    private long zeroValue;
+    private int size;
+
+    public LongLongMap() {
+        this(8);
+    }
+
+    public LongLongMap(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @return the value, or 0 if absent
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if absent
+     * @return the value, or {@code defaultValue} if absent
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(keys, key);
+        return keys[index] == key ? values[index] : defaultValue;
+    }
+
+    /**
+     * Checks whether a key is mapped.
+     *
+     * @param key the key
+     * @return {@code true} if mapped
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZeroKey : keys[indexOf(keys, key)] == key;
+    }
+
+    /**
+     * Puts a value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(long key, long value) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = indexOf(keys, key);
+        if (keys[index] == key) {
+            values[index] = value;
+            return;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size * 4L >= keys.length * 3L) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds to a value, an absent value counts as 0.
+     *
+     * @param key   the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public long addTo(long key, long delta) {
+        long value = getOrDefault(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     * @return {@code true} if a value was removed
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = false;
+            zeroValue = 0;
+        } else {
+            int index = indexOf(keys, key);
+            if (keys[index] != key) {
+                return false;
+            }
+            delete(index);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the count of entries.
+     *
+     * @return the count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return {@code true} if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        containsZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * Gets the keys, in no particular order.
+     *
+     * @return a new list of the keys
+     */
+    public LongList keys() {
+        LongList result = new LongList(size);
+        forEach((key, value) -> result.addLong(key));
+        return result;
+    }
+
+    /**
+     * Performs an action for each entry, in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEach(EntryConsumer action) {
+        if (containsZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LongLongMap)) {
+            return false;
+        }
+        LongLongMap other = (LongLongMap) o;
+        if (other.size != size) {
+            return false;
+        }
+        boolean[] equal = {true};
+        forEach((key, value) -> {
+            if (equal[0] && (!other.containsKey(key) || other.get(key) != value)) {
+                equal[0] = false;
+            }
+        });
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        forEach((key, value) -> hash[0] += Long.hashCode(key) ^ Long.hashCode(value));
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Deletes a slot by shifting back the following entries of its probe sequence, so that no
+     * tombstones are needed.
+     */
+    private void delete(int index) {
+        int mask = keys.length - 1;
+        int i = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == 0) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of a key, or the free slot where it belongs.
+     */
+    private static int indexOf(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(8, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
@@ -0,0 +1,300 @@
+package net.bndy.lib.primitive;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A hash set of {@code long} values, stored in an open-addressing table with linear probing in a
+ * plain {@code long[]}.
+ * <p>
+ * The primitive methods, such as {@link #addLong(long)} and {@link #containsLong(long)}, never
+ * box. It is also a {@code Set<Long>} for existing APIs, whose methods box on each call. Jackson
+ * reads and writes it as a JSON array of numbers. Not thread-safe.
+ */
+@JsonSerialize(using = PrimitiveJson.LongSetSerializer.class)
+@JsonDeserialize(using = PrimitiveJson.LongSetDeserializer.class)
+public class LongSet extends AbstractSet<Long> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 0 marks the free slots, so the value 0 is tracked by a flag
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+    private int modCount;
+
+    public LongSet() {
+        this(8);
+    }
+
+    public LongSet(int expectedSize) {
+        this.table = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * Creates a set of values.
+     *
+     * @param values the values
+     * @return the set
+     */
+    public static LongSet of(long... values) {
+        LongSet set = new LongSet(values.length);
+        for (long value : values) {
+            set.addLong(value);
+        }
+        return set;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return {@code true} if the value was absent
+     */
+    public boolean addLong(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+        } else {
+            int index = indexOf(table, value);
+            if (table[index] == value) {
+                return false;
+            }
+            table[index] = value;
+            if ((size + 1) * 4L >= table.length * 3L) {
+                rehash(table.length * 2);
+            }
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Checks whether the set contains a value.
+     *
+     * @param value the value
+     * @return {@code true} if contained
+     */
+    public boolean containsLong(long value) {
+        return value == 0 ? containsZero : table[indexOf(table, value)] == value;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value
+     * @return {@code true} if the value was present
+     */
+    public boolean removeLong(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+        } else {
+            int index = indexOf(table, value);
+            if (table[index] != value) {
+                return false;
+            }
+            delete(index);
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Performs an action for each value, in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEachLong(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Copies the values into a new array, in no particular order.
+     *
+     * @return the array
+     */
+    public long[] toLongArray() {
+        long[] result = new long[size];
+        int i = containsZero ? 1 : 0;
+        for (long value : table) {
+            if (value != 0) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && containsLong((Long) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && removeLong((Long) o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        LongSet kept = new LongSet(size);
+        forEachLong(value -> {
+            if (c.contains(value)) {
+                kept.addLong(value);
+            }
+        });
+        if (kept.size == size) {
+            return false;
+        }
+        table = kept.table;
+        containsZero = kept.containsZero;
+        size = kept.size;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        table = new long[tableSizeFor(0)];
+        containsZero = false;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private final int expectedModCount = modCount;
+            private int next = containsZero ? -1 : advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < table.length;
+            }
+
+            @Override
+            public Long next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long value = next < 0 ? 0 : table[next];
+                next = advance(next + 1);
+                return value;
+            }
+
+            private int advance(int from) {
+                int i = from;
+                while (i < table.length && table[i] == 0) {
+                    i++;
+                }
+                return i;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long value : table) {
+            hash += Long.hashCode(value);
+        }
+        return hash;
+    }
+
+    /**
+     * Deletes a slot by shifting back the following entries of its probe sequence, so that no
+     * tombstones are needed.
+     */
+    private void delete(int index) {
+        int mask = table.length - 1;
+        int i = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (table[j] == 0) {
+                break;
+            }
+            int home = hash(table[j]) & mask;
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        for (long value : old) {
+            if (value != 0) {
+                table[indexOf(table, value)] = value;
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of a value, or the free slot where it belongs.
+     */
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        int i = hash(value) & mask;
+        while (table[i] != 0 && table[i] != value) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(8, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
@@ -0,0 +1,298 @@
+package net.bndy.lib.primitive;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * The Jackson serializers and deserializers of the primitive collections, which write and read
+ * the values straight from and into the backing arrays without boxing. Lists and sets are JSON
+ * arrays of numbers, maps are JSON objects whose field names are the keys. Numbers quoted as
+ * strings are accepted when reading.
+ */
+public final class PrimitiveJson {
+
+    private PrimitiveJson() {
+    }
+
+    public static class LongListSerializer extends StdSerializer<LongList> {
+        private static final long serialVersionUID = 1L;
+
+        public LongListSerializer() {
+            super(LongList.class);
+        }
+
+        @Override
+        public void serialize(LongList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(value.size());
+            for (int i = 0; i < value.size(); i++) {
+                gen.writeNumber(value.getLong(i));
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    public static class LongListDeserializer extends StdDeserializer<LongList> {
+        private static final long serialVersionUID = 1L;
+
+        public LongListDeserializer() {
+            super(LongList.class);
+        }
+
+        @Override
+        public LongList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkArray(p, ctxt, LongList.class);
+            LongList result = new LongList();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                result.addLong(readLong(p, ctxt, LongList.class));
+            }
+            return result;
+        }
+    }
+
+    public static class IntListSerializer extends StdSerializer<IntList> {
+        private static final long serialVersionUID = 1L;
+
+        public IntListSerializer() {
+            super(IntList.class);
+        }
+
+        @Override
+        public void serialize(IntList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(value.size());
+            for (int i = 0; i < value.size(); i++) {
+                gen.writeNumber(value.getInt(i));
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    public static class IntListDeserializer extends StdDeserializer<IntList> {
+        private static final long serialVersionUID = 1L;
+
+        public IntListDeserializer() {
+            super(IntList.class);
+        }
+
+        @Override
+        public IntList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkArray(p, ctxt, IntList.class);
+            IntList result = new IntList();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                result.addInt(readInt(p, ctxt, IntList.class));
+            }
+            return result;
+        }
+    }
+
+    public static class LongSetSerializer extends StdSerializer<LongSet> {
+        private static final long serialVersionUID = 1L;
+
+        public LongSetSerializer() {
+            super(LongSet.class);
+        }
+
+        @Override
+        public void serialize(LongSet value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            long[] values = value.toLongArray();
+            gen.writeArray(values, 0, values.length);
+        }
+    }
+
+    public static class LongSetDeserializer extends StdDeserializer<LongSet> {
+        private static final long serialVersionUID = 1L;
+
+        public LongSetDeserializer() {
+            super(LongSet.class);
+        }
+
+        @Override
+        public LongSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkArray(p, ctxt, LongSet.class);
+            LongSet result = new LongSet();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                result.addLong(readLong(p, ctxt, LongSet.class));
+            }
+            return result;
+        }
+    }
+
+    public static class IntSetSerializer extends StdSerializer<IntSet> {
+        private static final long serialVersionUID = 1L;
+
+        public IntSetSerializer() {
+            super(IntSet.class);
+        }
+
+        @Override
+        public void serialize(IntSet value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int[] values = value.toIntArray();
+            gen.writeArray(values, 0, values.length);
+        }
+    }
+
+    public static class IntSetDeserializer extends StdDeserializer<IntSet> {
+        private static final long serialVersionUID = 1L;
+
+        public IntSetDeserializer() {
+            super(IntSet.class);
+        }
+
+        @Override
+        public IntSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkArray(p, ctxt, IntSet.class);
+            IntSet result = new IntSet();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                result.addInt(readInt(p, ctxt, IntSet.class));
+            }
+            return result;
+        }
+    }
+
+    public static class LongLongMapSerializer extends StdSerializer<LongLongMap> {
+        private static final long serialVersionUID = 1L;
+
+        public LongLongMapSerializer() {
+            super(LongLongMap.class);
+        }
+
+        @Override
+        public void serialize(LongLongMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            LongList keys = value.keys();
+            gen.writeStartObject();
+            for (int i = 0; i < keys.size(); i++) {
+                long key = keys.getLong(i);
+                gen.writeFieldName(Long.toString(key));
+                gen.writeNumber(value.get(key));
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class LongLongMapDeserializer extends StdDeserializer<LongLongMap> {
+        private static final long serialVersionUID = 1L;
+
+        public LongLongMapDeserializer() {
+            super(LongLongMap.class);
+        }
+
+        @Override
+        public LongLongMap deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkObject(p, ctxt, LongLongMap.class);
+            LongLongMap result = new LongLongMap();
+            for (JsonToken t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String name = p.getCurrentName();
+                long key;
+                try {
+                    key = Long.parseLong(name.trim());
+                } catch (NumberFormatException e) {
+                    throw ctxt.weirdKeyException(Long.class, name, "not a valid long");
+                }
+                p.nextToken();
+                result.put(key, readLong(p, ctxt, LongLongMap.class));
+            }
+            return result;
+        }
+    }
+
+    public static class IntIntMapSerializer extends StdSerializer<IntIntMap> {
+        private static final long serialVersionUID = 1L;
+
+        public IntIntMapSerializer() {
+            super(IntIntMap.class);
+        }
+
+        @Override
+        public void serialize(IntIntMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            IntList keys = value.keys();
+            gen.writeStartObject();
+            for (int i = 0; i < keys.size(); i++) {
+                int key = keys.getInt(i);
+                gen.writeFieldName(Integer.toString(key));
+                gen.writeNumber(value.get(key));
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class IntIntMapDeserializer extends StdDeserializer<IntIntMap> {
+        private static final long serialVersionUID = 1L;
+
+        public IntIntMapDeserializer() {
+            super(IntIntMap.class);
+        }
+
+        @Override
+        public IntIntMap deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            checkObject(p, ctxt, IntIntMap.class);
+            IntIntMap result = new IntIntMap();
+            for (JsonToken t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String name = p.getCurrentName();
+                int key;
+                try {
+                    key = Integer.parseInt(name.trim());
+                } catch (NumberFormatException e) {
+                    throw ctxt.weirdKeyException(Integer.class, name, "not a valid int");
+                }
+                p.nextToken();
+                result.put(key, readInt(p, ctxt, IntIntMap.class));
+            }
+            return result;
+        }
+    }
+
+    private static void checkArray(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            ctxt.handleUnexpectedToken(type, p);
+        }
+    }
+
+    /**
+     * Moves to the first field name, or the end of an empty object.
+     */
+    private static void checkObject(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        if (p.isExpectedStartObjectToken()) {
+            p.nextToken();
+        } else if (p.currentToken() != JsonToken.FIELD_NAME && p.currentToken() != JsonToken.END_OBJECT) {
+            ctxt.handleUnexpectedToken(type, p);
+        }
+    }
+
+    private static long readLong(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return p.getLongValue();
+            case VALUE_STRING:
+                try {
+                    return Long.parseLong(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw ctxt.weirdStringException(p.getText(), Long.class, "not a valid long");
+                }
+            default:
+                ctxt.handleUnexpectedToken(type, p);
+                return 0;
+        }
+    }
+
+    private static int readInt(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return p.getIntValue();
+            case VALUE_STRING:
+                try {
+                    return Integer.parseInt(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw ctxt.weirdStringException(p.getText(), Integer.class, "not a valid int");
+                }
+            default:
+                ctxt.handleUnexpectedToken(type, p);
+                return 0;
+        }
+    }
+}
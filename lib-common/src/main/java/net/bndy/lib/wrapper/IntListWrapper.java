@@ -0,0 +1,24 @@
+package net.bndy.lib.wrapper;
+
+import java.io.Serializable;
+
+import net.bndy.lib.primitive.IntList;
+
+/**
+ * The unboxed variant of {@link IntegersWrapper}, whose values are read into a {@link IntList}
+ * without boxing. A {@code null} element is rejected when reading, use {@link IntegersWrapper} when
+ * the values may contain nulls.
+ */
+public class IntListWrapper implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private IntList values;
+
+    public IntList getValues() {
+        return values;
+    }
+
+    public void setValues(IntList values) {
+        this.values = values;
+    }
+}
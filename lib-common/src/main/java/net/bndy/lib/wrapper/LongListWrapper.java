@@ -0,0 +1,24 @@
+package net.bndy.lib.wrapper;
+
+import java.io.Serializable;
+
+import net.bndy.lib.primitive.LongList;
+
+/**
+ * The unboxed variant of {@link LongsWrapper}, whose values are read into a {@link LongList}
+ * without boxing. A {@code null} element is rejected when reading, use {@link LongsWrapper} when
+ * the values may contain nulls.
+ */
+public class LongListWrapper implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private LongList values;
+
+    public LongList getValues() {
+        return values;
+    }
+
+    public void setValues(LongList values) {
+        this.values = values;
+    }
+}
@@ -0,0 +1,101 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BeanMapperTest {
+
+    public enum Status { ACTIVE, LOCKED }
+
+    public static class Row {
+        private int id;
+        private long version;
+        private Double score;
+        private boolean enabled;
+        private Status status;
+        private String name;
+    }
+
+    public static class Numbers {
+        private int i;
+        private short s;
+        private byte b;
+        private Long l;
+        private float f;
+        private Boolean flag;
+        private BigInteger big;
+    }
+
+    @Test public void conversions() {
+        BeanMapper<Numbers> mapper = BeanMapper.of(Numbers.class);
+        Numbers numbers = new Numbers();
+        Assert.assertTrue(mapper.set(numbers, "i", 3.0));
+        Assert.assertTrue(mapper.set(numbers, "s", -32768L));
+        Assert.assertTrue(mapper.set(numbers, "b", new BigDecimal("127")));
+        Assert.assertTrue(mapper.set(numbers, "l", BigInteger.valueOf(Long.MIN_VALUE)));
+        Assert.assertTrue(mapper.set(numbers, "f", 0.5d));
+        Assert.assertTrue(mapper.set(numbers, "flag", "FALSE"));
+        Assert.assertTrue(mapper.set(numbers, "big", 1e20));
+        Assert.assertEquals(numbers.i, 3);
+        Assert.assertEquals(numbers.s, Short.MIN_VALUE);
+        Assert.assertEquals(numbers.b, 127);
+        Assert.assertEquals(numbers.l, Long.valueOf(Long.MIN_VALUE));
+        Assert.assertEquals(numbers.f, 0.5f, 0);
+        Assert.assertEquals(numbers.flag, Boolean.FALSE);
+        Assert.assertEquals(numbers.big, new BigInteger("100000000000000000000"));
+
+        // overflow, fractions and bad input are rejected instead of truncated
+        Object[][] invalid = {
+            { "i", 1L << 32 }, { "i", 2.5 }, { "i", "1.0" }, { "i", Double.NaN },
+            { "s", 32768 }, { "b", -129 }, { "b", "300" },
+            { "l", 1e19 }, { "l", new BigInteger("9223372036854775808") }, { "l", new BigDecimal("1.1") },
+            { "f", 1e300 }, { "big", 0.5 },
+            { "flag", "yes" }, { "flag", "1" }, { "flag", 0.5 },
+        };
+        for (Object[] item : invalid) {
+            try {
+                mapper.set(numbers, (String) item[0], item[1]);
+                Assert.fail(item[0] + " = " + item[1]);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains(String.valueOf(item[1])));
+            }
+        }
+        Assert.assertEquals(numbers.i, 3);
+        Assert.assertEquals(numbers.flag, Boolean.FALSE);
+        Assert.assertTrue(mapper.set(numbers, "flag", 1L << 32));
+        Assert.assertEquals(numbers.flag, Boolean.TRUE);
+    }
+
+    @Test public void convertMap2() throws Exception {
+        Map<String, Object> source = new HashMap<>();
+        source.put("id", 7L);
+        source.put("version", "42");
+        source.put("score", new BigDecimal("1.5"));
+        source.put("enabled", 1);
+        source.put("status", "LOCKED");
+        source.put("name", "row");
+        source.put("unknown", "ignored");
+        Row row = CollectionHelper.convertMap2(source, Row.class);
+        Assert.assertEquals(row.id, 7);
+        Assert.assertEquals(row.version, 42L);
+        Assert.assertEquals(row.score, Double.valueOf(1.5));
+        Assert.assertTrue(row.enabled);
+        Assert.assertEquals(row.status, Status.LOCKED);
+        Assert.assertEquals(row.name, "row");
+
+        source.put("id", null);
+        source.put("status", "MISSING");
+        try {
+            BeanMapper.of(Row.class).apply(source, row);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(row.id, 7);
+        }
+        Assert.assertSame(BeanMapper.of(Row.class), BeanMapper.of(Row.class));
+    }
+}
@@ -0,0 +1,370 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheOptions;
+import net.bndy.lib.cache.RemovalCause;
+import net.bndy.lib.cache.RemovalNotification;
+import net.bndy.lib.cache.RemovalOverflowPolicy;
+import net.bndy.lib.cache.SizeEstimator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class CacheEngineTest {
+
+    @Test public void independentInstances() {
+        CacheEngine a = new CacheEngine();
+        CacheEngine b = new CacheEngine();
+        a.put("k", 1);
+        Assert.assertEquals(a.getInteger("k"), Integer.valueOf(1));
+        Assert.assertNull(b.getInteger("k"));
+        Assert.assertEquals(b.getSize(), 0);
+    }
+
+    @Test public void prefix() {
+        CacheEngine cache = new CacheEngine();
+        cache.put("user:1:profile", "a");
+        cache.put("user:1:roles", "b");
+        cache.put("user:2:profile", "c");
+        Assert.assertEquals(cache.getSizeKeyStartsWith("user:1:"), 2);
+        Assert.assertEquals(cache.clearKeyStartsWith("user:1:"), 2);
+        Assert.assertEquals(cache.getSize(), 1);
+        Assert.assertEquals(cache.getString("user:2:profile"), "c");
+        Assert.assertEquals(cache.getSizeKeyStartsWith("user:1:"), 0);
+        Assert.assertEquals(cache.getSizeKeyStartsWith(""), 1);
+    }
+
+    @Test public void batch() {
+        CacheEngine cache = new CacheEngine();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("a", 1);
+        values.put("b", 2);
+        values.put("c", 3);
+        cache.putAll(values, -1);
+        Assert.assertEquals(cache.getSize(), 3);
+
+        Map<String, Integer> found = cache.getAll(Arrays.asList("c", "x", "a"));
+        Assert.assertEquals(new ArrayList<>(found.keySet()), Arrays.asList("c", "a"));
+        Assert.assertEquals(found.get("a"), Integer.valueOf(1));
+
+        Assert.assertEquals(cache.removeAll(Arrays.asList("a", "b", "x")), 2);
+        Assert.assertEquals(cache.getSize(), 1);
+        Assert.assertEquals(cache.getInteger("c"), Integer.valueOf(3));
+    }
+
+    @Test public void tags() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(2);
+        options.setOffHeapMaximumBytes(1 << 20);
+        options.setOffHeapSlabBytes(64 * 1024);
+        CacheEngine cache = new CacheEngine(options);
+        cache.put("page:1", "p1", -1, "user:1", "post:1");
+        cache.put("page:2", "p2", -1, "user:2");
+        cache.put("page:3", "p3", -1, "post:1");
+        cache.put("page:4", "p4", -1, "user:1");
+        cache.put("page:4", "p4", -1);
+
+        Assert.assertEquals(cache.invalidateTag("user:1"), 1);
+        Assert.assertEquals(cache.getString("page:1"), null);
+        Assert.assertEquals(cache.getString("page:4"), "p4");
+        Assert.assertEquals(cache.invalidateTag("post:1"), 1);
+        Assert.assertEquals(cache.getString("page:3"), null);
+        Assert.assertEquals(cache.getString("page:2"), "p2");
+        Assert.assertEquals(cache.invalidateTag("unknown"), 0);
+    }
+
+    @Test public void removalListener() throws InterruptedException {
+        List<RemovalNotification> notifications = Collections.synchronizedList(new ArrayList<>());
+        Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(5);
+        options.setRemovalListener(notification -> {
+            threads.add(Thread.currentThread().getName());
+            notifications.add(notification);
+        });
+        CacheEngine cache = new CacheEngine(options);
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.remove("a");
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, i);
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (notifications.size() < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(notifications.get(0).getCause(), RemovalCause.REPLACED);
+        Assert.assertEquals(notifications.get(0).getValue(), 1);
+        Assert.assertEquals(notifications.get(1).getCause(), RemovalCause.EXPLICIT);
+        Assert.assertEquals(notifications.get(1).getValue(), 2);
+        long evicted = notifications.stream().filter(RemovalNotification::wasEvicted).count();
+        Assert.assertEquals(evicted, 5);
+        Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test public void removalQueueOverflowDrop() throws InterruptedException {
+        List<Runnable> pending = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        CacheOptions options = new CacheOptions();
+        options.setRemovalQueueCapacity(3);
+        options.setRemovalOverflowPolicy(RemovalOverflowPolicy.DROP);
+        options.setRemovalExecutor(pending::add);
+        options.setRemovalListener(notification -> removed.add(notification.getKey()));
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, i);
+            cache.remove("k" + i);
+        }
+        // the listener has not run yet, the queue holds the first 3 notifications
+        Assert.assertEquals(cache.getStats().getDroppedRemovalNotificationCount(), 2);
+        Assert.assertEquals(pending.size(), 1);
+        pending.get(0).run();
+        Assert.assertEquals(removed, Arrays.asList("k0", "k1", "k2"));
+
+        cache.remove("k9");
+        cache.put("k5", 5);
+        cache.remove("k5");
+        Assert.assertEquals(pending.size(), 2);
+        pending.get(1).run();
+        Assert.assertEquals(removed, Arrays.asList("k0", "k1", "k2", "k5"));
+    }
+
+    @Test public void removalQueueOverflowCallerRuns() {
+        List<Runnable> pending = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        CacheOptions options = new CacheOptions();
+        Assert.assertEquals(options.getRemovalOverflowPolicy(), RemovalOverflowPolicy.CALLER_RUNS);
+        options.setRemovalQueueCapacity(3);
+        options.setRemovalExecutor(pending::add);
+        options.setRemovalListener(notification -> removed.add(notification.getKey()));
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, i);
+            cache.remove("k" + i);
+        }
+        // the overflowing notifications ran on this thread, ahead of the queued ones
+        Assert.assertEquals(removed, Arrays.asList("k3", "k4"));
+        Assert.assertEquals(cache.getStats().getDroppedRemovalNotificationCount(), 0);
+        Assert.assertEquals(pending.size(), 1);
+        pending.get(0).run();
+        Assert.assertEquals(removed, Arrays.asList("k3", "k4", "k0", "k1", "k2"));
+    }
+
+    @Test(timeout = 5000) public void removalQueueOverflowBlock() throws InterruptedException {
+        List<Runnable> pending = new CopyOnWriteArrayList<>();
+        List<String> removed = new CopyOnWriteArrayList<>();
+        CacheOptions options = new CacheOptions();
+        options.setRemovalQueueCapacity(1);
+        options.setRemovalOverflowPolicy(RemovalOverflowPolicy.BLOCK);
+        options.setRemovalExecutor(pending::add);
+        options.setRemovalListener(notification -> removed.add(notification.getKey()));
+        CacheEngine cache = new CacheEngine(options);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2; i++) {
+                cache.put("k" + i, i);
+                cache.remove("k" + i);
+            }
+        });
+        writer.start();
+        // the second notification waits for the first one to be delivered
+        writer.join(200);
+        Assert.assertTrue(writer.isAlive());
+        Assert.assertTrue(removed.isEmpty());
+        pending.get(0).run();
+        writer.join();
+        Assert.assertEquals(removed, Collections.singletonList("k0"));
+        Assert.assertEquals(cache.getStats().getDroppedRemovalNotificationCount(), 0);
+        pending.get(pending.size() - 1).run();
+        Assert.assertEquals(removed, Arrays.asList("k0", "k1"));
+    }
+
+    @Test public void concurrentAccess() throws InterruptedException {
+        CacheEngine cache = new CacheEngine();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t * 1000;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    cache.put("k" + (offset + i), offset + i);
+                    Assert.assertEquals(cache.getInteger("k" + (offset + i)), Integer.valueOf(offset + i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(cache.getSize(), 8000);
+    }
+
+    @Test public void maximumSize() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(100);
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("k" + i, i);
+            Assert.assertTrue(cache.getSize() <= 100);
+        }
+        Assert.assertEquals(cache.getSize(), 100);
+    }
+
+    @Test public void maximumWeight() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumWeight(100_000);
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 100; i++) {
+            cache.put("small" + i, "value" + i);
+        }
+        cache.put("large", new long[50_000]);
+        Assert.assertTrue(cache.getWeightedSize() <= 100_000);
+        Assert.assertNull(cache.get("large"));
+        Assert.assertEquals(cache.getSize(), 100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("k" + i, new int[256]);
+            Assert.assertTrue(cache.getWeightedSize() <= 100_000);
+        }
+        Assert.assertTrue(cache.getSize() < 100);
+        Assert.assertTrue(SizeEstimator.estimate(new int[256]) > 1024);
+    }
+
+    @Test public void weighingFailures() {
+        // a collection modified while it is measured falls back to a fixed weight
+        List<String> mutating = new ArrayList<String>(Arrays.asList("a", "b", "c")) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public java.util.Iterator<String> iterator() {
+                throw new java.util.ConcurrentModificationException();
+            }
+        };
+        Assert.assertTrue(new SizeEstimator().weigh("k", mutating) > SizeEstimator.DEFAULT_OBJECT_BYTES);
+
+        // a failing weigher fails the put on the calling thread and leaves the cache usable
+        CacheOptions options = new CacheOptions();
+        options.setMaximumWeight(10);
+        options.setWeigher((key, value) -> {
+            if ("bad".equals(key)) {
+                throw new IllegalStateException();
+            }
+            return 1;
+        });
+        CacheEngine cache = new CacheEngine(options);
+        try {
+            cache.put("bad", 1);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertNull(cache.get("bad"));
+        }
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, i);
+        }
+        Assert.assertEquals(cache.getWeightedSize(), 10);
+        Assert.assertEquals(cache.getSize(), 10);
+    }
+
+    @Test public void frequentEntriesSurviveScan() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(100);
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, i);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot" + i);
+            }
+        }
+        for (int i = 0; i < 10000; i++) {
+            cache.put("scan" + i, i);
+        }
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                hits++;
+            }
+        }
+        Assert.assertTrue("hot entries evicted by a scan: " + hits, hits >= 45);
+    }
+
+    @Test public void expiration() throws InterruptedException {
+        CacheEngine cache = new CacheEngine();
+        for (int i = 0; i < 1000; i++) {
+            cache.put("short" + i, i, 50 + i % 100);
+            cache.put("long" + i, i, 60000);
+        }
+        cache.put("forever", 1);
+        Assert.assertEquals(cache.getSize(), 2001);
+        Thread.sleep(200);
+        Assert.assertEquals(cache.getSize(), 1001);
+        Assert.assertEquals(cache.getSizeKeyStartsWith("short"), 0);
+        Assert.assertEquals(cache.getInteger("long1"), Integer.valueOf(1));
+    }
+
+    @Test public void offHeap() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(10);
+        options.setOffHeapMaximumBytes(64 * 1024);
+        options.setOffHeapSlabBytes(16 * 1024);
+        CacheEngine cache = new CacheEngine(options);
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, "value" + i);
+        }
+        Assert.assertEquals(cache.getSize(), 10);
+        Assert.assertEquals(cache.getOffHeapSize(), 90);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(cache.getString("k" + i), "value" + i);
+        }
+        Assert.assertEquals(cache.clearKeyStartsWith("k"), 100);
+        Assert.assertNull(cache.get("k1"));
+        Assert.assertEquals(cache.getOffHeapSize(), 0);
+    }
+
+    public static class SlowValue implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        static volatile CacheEngine cache;
+        static volatile boolean lockFree;
+
+        private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException, InterruptedException {
+            // another thread needing the eviction lock must not wait for the serialization
+            Thread thread = new Thread(cache::cleanUp);
+            thread.start();
+            thread.join(5000);
+            lockFree = !thread.isAlive();
+            out.defaultWriteObject();
+        }
+    }
+
+    @Test public void offHeapDemotionOutsideLock() {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(1);
+        options.setOffHeapMaximumBytes(64 * 1024);
+        options.setOffHeapSlabBytes(16 * 1024);
+        CacheEngine cache = new CacheEngine(options);
+        SlowValue.cache = cache;
+        cache.put("slow", new SlowValue());
+        cache.put("other", "value");
+        cache.cleanUp();
+        Assert.assertTrue(SlowValue.lockFree);
+        Assert.assertEquals(cache.getOffHeapSize(), 1);
+        Assert.assertTrue(cache.get("slow") instanceof SlowValue);
+
+        // a value removed before it is written is not revived
+        cache.put("other", new java.util.ArrayList<>(Arrays.asList("a")));
+        cache.put("last", "value");
+        cache.remove("other");
+        cache.cleanUp();
+        Assert.assertNull(cache.get("other"));
+    }
+}
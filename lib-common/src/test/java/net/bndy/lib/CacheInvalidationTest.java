@@ -0,0 +1,155 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheOptions;
+import net.bndy.lib.cache.Invalidation;
+import net.bndy.lib.cache.InvalidationTransport;
+import net.bndy.lib.cache.LoopbackTransport;
+import net.bndy.lib.cache.MulticastTransport;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+public class CacheInvalidationTest {
+
+    @Test public void loopback() throws InterruptedException {
+        LoopbackTransport transport = new LoopbackTransport();
+        CacheEngine node1 = newNode(transport);
+        CacheEngine node2 = newNode(transport);
+        for (CacheEngine node : new CacheEngine[] { node1, node2 }) {
+            node.get("user:1", key -> "Jack");
+            node.get("user:2", key -> "Rose");
+            node.get("page:home", key -> "<html>");
+        }
+
+        node1.remove("user:1");
+        await(() -> node2.get("user:1") == null);
+        Assert.assertEquals(node2.getString("user:2"), "Rose");
+
+        node1.clearKeyStartsWith("user:");
+        await(() -> node2.get("user:2") == null);
+        Assert.assertEquals(node2.getString("page:home"), "<html>");
+
+        node2.put("page:home", "<html/>");
+        await(() -> node1.get("page:home") == null);
+        Assert.assertEquals(node2.getString("page:home"), "<html/>");
+
+        // every subscriber gets the batch, then the first failure is reported to the publisher
+        List<Invalidation> received = new ArrayList<>();
+        transport.subscribe((origin, invalidations) -> {
+            throw new IllegalStateException("failing subscriber");
+        });
+        transport.subscribe((origin, invalidations) -> received.addAll(invalidations));
+        try {
+            transport.publish("node3", Collections.singletonList(Invalidation.all()));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(received, Collections.singletonList(Invalidation.all()));
+        }
+    }
+
+    @Test public void close() throws InterruptedException {
+        LoopbackTransport transport = new LoopbackTransport();
+        CacheEngine node1 = newNode(transport);
+        CacheEngine node2 = newNode(transport);
+        node1.put("k", 1);
+        node2.put("k", 2);
+        node2.close();
+        node1.remove("other");
+        node1.put("k", 3);
+        Thread.sleep(50);
+        Assert.assertEquals(node2.getInteger("k"), Integer.valueOf(2));
+        node2.put("k", 4);
+        Thread.sleep(50);
+        Assert.assertEquals(node1.getInteger("k"), Integer.valueOf(3));
+    }
+
+    @Test public void multicast() throws Exception {
+        InetAddress group = InetAddress.getByName("239.255.41.7");
+        int port = 40000 + ThreadLocalRandom.current().nextInt(20000);
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        MulticastTransport sender;
+        MulticastTransport receiver;
+        try {
+            sender = new MulticastTransport(group, port, loopback);
+            receiver = new MulticastTransport(group, port, loopback);
+        } catch (IOException e) {
+            Assume.assumeNoException("multicast is not available", e);
+            return;
+        }
+        try {
+            List<Invalidation> received = Collections.synchronizedList(new ArrayList<>());
+            InvalidationTransport.Subscriber subscriber = (origin, invalidations) -> {
+                if ("node1".equals(origin)) {
+                    received.addAll(invalidations);
+                }
+            };
+            receiver.subscribe(subscriber);
+
+            sender.publish("node1", Collections.singletonList(Invalidation.all()));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assume.assumeFalse("multicast datagrams are not delivered", received.isEmpty());
+            received.clear();
+
+            // a failing subscriber does not keep the batch from the next ones
+            receiver.unsubscribe(subscriber);
+            InvalidationTransport.Subscriber failing = (origin, invalidations) -> {
+                throw new IllegalStateException("failing subscriber");
+            };
+            receiver.subscribe(failing);
+            receiver.subscribe(subscriber);
+
+            // a foreign datagram is dropped without stopping the receiver
+            try (DatagramSocket socket = new DatagramSocket()) {
+                socket.send(new DatagramPacket(new byte[] { 1, 2, 3 }, 3, group, port));
+            }
+            // enough entries to be split into several datagrams
+            List<Invalidation> batch = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                batch.add(Invalidation.key("user:" + i + ":profile"));
+            }
+            batch.add(Invalidation.prefix("page:"));
+            batch.add(Invalidation.tag("orders"));
+            sender.publish("node1", batch);
+            await(() -> received.size() >= batch.size());
+            Assert.assertEquals(received, batch);
+
+            receiver.unsubscribe(subscriber);
+            received.clear();
+            sender.publish("node1", Collections.singletonList(Invalidation.key("k")));
+            Thread.sleep(100);
+            Assert.assertTrue(received.isEmpty());
+        } finally {
+            sender.close();
+            receiver.close();
+        }
+    }
+
+    private static CacheEngine newNode(LoopbackTransport transport) {
+        CacheOptions options = new CacheOptions();
+        options.setInvalidationTransport(transport);
+        return new CacheEngine(options);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheLoaderTest {
+
+    @Test public void singleFlight() throws InterruptedException {
+        CacheEngine cache = new CacheEngine();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                String value = cache.get("hot", key -> {
+                    loads.incrementAndGet();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "loaded";
+                });
+                synchronized (results) {
+                    results.add(value);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(results.size(), 16);
+        for (String result : results) {
+            Assert.assertEquals(result, "loaded");
+        }
+    }
+
+    @Test public void bulkLoad() {
+        CacheEngine cache = new CacheEngine();
+        cache.put("a", 1);
+        AtomicInteger loads = new AtomicInteger();
+        Map<String, Integer> values = cache.getAll(Arrays.asList("a", "b", "c", "missing"), keys -> {
+            loads.incrementAndGet();
+            Assert.assertEquals(keys.size(), 3);
+            Map<String, Integer> result = new HashMap<>();
+            result.put("b", 2);
+            result.put("c", 3);
+            return result;
+        }, -1);
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(new ArrayList<>(values.keySet()), Arrays.asList("a", "b", "c"));
+        Assert.assertEquals(cache.getInteger("c"), Integer.valueOf(3));
+    }
+
+    @Test(expected = IllegalStateException.class) public void loaderFailure() {
+        new CacheEngine().get("k", key -> {
+            throw new IllegalStateException();
+        });
+    }
+
+    @Test public void refreshAhead() throws InterruptedException {
+        CacheOptions options = new CacheOptions();
+        options.setRefreshAfterWrite(50);
+        options.setRefreshExecutor(Runnable::run);
+        CacheEngine cache = new CacheEngine(options);
+        AtomicInteger version = new AtomicInteger();
+        Assert.assertEquals(cache.get("k", key -> version.incrementAndGet(), 10000), Integer.valueOf(1));
+        Thread.sleep(60);
+        // the stale value is served while the refresh replaces it
+        Assert.assertEquals(cache.getInteger("k"), Integer.valueOf(1));
+        Assert.assertEquals(cache.getInteger("k"), Integer.valueOf(2));
+
+        Thread.sleep(60);
+        AtomicInteger failures = new AtomicInteger();
+        CacheEngine failing = new CacheEngine(options);
+        failing.get("k", key -> {
+            if (failures.getAndIncrement() > 0) {
+                throw new IllegalStateException("backend down");
+            }
+            return "stale";
+        }, 10000);
+        Thread.sleep(60);
+        Assert.assertEquals(failing.getString("k"), "stale");
+        Assert.assertEquals(failing.getString("k"), "stale");
+    }
+
+    @Test public void refreshFailureHandler() throws InterruptedException {
+        List<String> failed = new ArrayList<>();
+        CacheOptions options = new CacheOptions();
+        options.setRefreshAfterWrite(20);
+        options.setRefreshExecutor(Runnable::run);
+        options.setRecordStats(true);
+        options.setRefreshFailureHandler((key, e) -> failed.add(key + ":" + e.getMessage()));
+        CacheEngine cache = new CacheEngine(options);
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("k", key -> {
+            if (calls.getAndIncrement() > 0) {
+                throw new IllegalStateException("backend down");
+            }
+            return "v";
+        }, 10000);
+        Thread.sleep(30);
+        Assert.assertEquals(cache.getString("k"), "v");
+        Assert.assertEquals(failed, Arrays.asList("k:backend down"));
+        Assert.assertEquals(cache.getStats().getLoadFailureCount(), 1);
+    }
+
+    @Test(timeout = 5000) public void removeDropsRefresh() throws InterruptedException {
+        List<Runnable> pending = new ArrayList<>();
+        CacheOptions options = new CacheOptions();
+        options.setRefreshAfterWrite(20);
+        options.setRefreshExecutor(pending::add);
+        CacheEngine cache = new CacheEngine(options);
+        cache.get("k", key -> "old", 10000);
+        Thread.sleep(30);
+        Assert.assertEquals(cache.getString("k"), "old");
+        Assert.assertEquals(pending.size(), 1);
+
+        // the load after the removal must not wait for the refresh in flight
+        cache.remove("k");
+        Assert.assertEquals(cache.get("k", key -> "new", 10000), "new");
+        pending.get(0).run();
+        Assert.assertEquals(cache.getString("k"), "new");
+    }
+}
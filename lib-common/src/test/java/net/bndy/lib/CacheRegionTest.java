@@ -0,0 +1,67 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.Cache;
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheOptions;
+import net.bndy.lib.cache.LoopbackTransport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+public class CacheRegionTest {
+
+    @Test public void isolation() throws InterruptedException {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(10);
+        options.setDefaultDuration(1);
+        CacheEngine sessions = Cache.region("sessions", options);
+        Assert.assertSame(Cache.region("sessions"), sessions);
+        Assert.assertSame(Cache.region(Cache.DEFAULT_REGION), Cache.getEngine());
+        Assert.assertTrue(Cache.getRegionNames().contains("sessions"));
+
+        Cache.put("region-test", "hot");
+        for (int i = 0; i < 100; i++) {
+            sessions.put("s" + i, i);
+        }
+        Assert.assertTrue(sessions.getSize() <= 10);
+        Assert.assertEquals(Cache.getString("region-test"), "hot");
+
+        Thread.sleep(5);
+        Assert.assertEquals(sessions.getSize(), 0);
+        Assert.assertTrue(Cache.removeRegion("sessions"));
+        Assert.assertNotSame(Cache.region("sessions"), sessions);
+        Cache.removeRegion("sessions");
+        Cache.remove("region-test");
+    }
+
+    @Test public void removeRegion() throws Exception {
+        LoopbackTransport transport = new LoopbackTransport();
+        CacheOptions options = new CacheOptions();
+        options.setInvalidationTransport(transport);
+        CacheEngine removed = Cache.region("removed", options);
+        CacheEngine peer = new CacheEngine(options);
+        ObjectName mbean = removed.registerMBean("removed-region");
+        removed.put("other", 1);
+        peer.put("k", 2);
+        Thread.sleep(50);
+
+        Assert.assertTrue(Cache.removeRegion("removed"));
+        Assert.assertFalse(Cache.removeRegion("removed"));
+        Assert.assertEquals(removed.getSize(), 0);
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(mbean));
+        // not invalidated on the peers, and no longer invalidated by them
+        Thread.sleep(50);
+        Assert.assertEquals(peer.getInteger("k"), Integer.valueOf(2));
+        removed.put("k", 3);
+        peer.put("k", 4);
+        Thread.sleep(50);
+        Assert.assertEquals(removed.getInteger("k"), Integer.valueOf(3));
+        peer.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void defaultRegionIsPermanent() {
+        Cache.removeRegion(Cache.DEFAULT_REGION);
+    }
+}
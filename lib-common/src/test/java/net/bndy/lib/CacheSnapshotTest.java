@@ -0,0 +1,92 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+public class CacheSnapshotTest {
+
+    @Test public void writeAndRestore() throws IOException, InterruptedException, ExecutionException {
+        File file = File.createTempFile("cache", ".snapshot");
+        try {
+            CacheEngine source = new CacheEngine();
+            for (int i = 0; i < 1000; i++) {
+                source.put("k" + i, "v" + i);
+            }
+            source.put("ttl", 1L, 60000, "tag");
+            source.put("expiring", 2L, 1);
+            source.put("unserializable", new Object());
+            Thread.sleep(5);
+            Assert.assertEquals(CacheSnapshot.write(source, file), 1001);
+
+            CacheEngine target = new CacheEngine();
+            target.put("k1", "fresh");
+            Assert.assertEquals(CacheSnapshot.restore(target, file).get().intValue(), 1000);
+            Assert.assertEquals(target.getString("k1"), "fresh");
+            Assert.assertEquals(target.getString("k999"), "v999");
+            Assert.assertEquals(target.getLong("ttl"), Long.valueOf(1L));
+            Assert.assertNull(target.get("expiring"));
+            Assert.assertEquals(target.getSize(), 1001);
+            Assert.assertEquals(target.invalidateTag("tag"), 1);
+            Assert.assertNull(target.get("ttl"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test public void skipExpiredSinceWrite() throws IOException, InterruptedException, ExecutionException {
+        File file = File.createTempFile("cache", ".snapshot");
+        try {
+            CacheEngine source = new CacheEngine();
+            source.put("short", "v", 200);
+            source.put("long", "v", 60000);
+            source.put("forever", "v");
+            Assert.assertEquals(CacheSnapshot.write(source, file), 3);
+            Thread.sleep(300);
+
+            CacheEngine target = new CacheEngine();
+            Assert.assertEquals(CacheSnapshot.restore(target, file).get().intValue(), 2);
+            Assert.assertNull(target.get("short"));
+            Assert.assertEquals(target.getString("long"), "v");
+            Assert.assertEquals(target.getString("forever"), "v");
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test public void corruptFile() throws IOException, InterruptedException {
+        File file = File.createTempFile("cache", ".snapshot");
+        try {
+            CacheEngine source = new CacheEngine();
+            source.put("k", "value", -1, "tag");
+            CacheSnapshot.write(source, file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // truncated in the length of the tag, then with a key length past the end
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+            assertRestoreFails(file, "Truncated");
+            bytes[16] = 0x7f;
+            Files.write(file.toPath(), bytes);
+            assertRestoreFails(file, "bad length");
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertRestoreFails(File file, String message) throws InterruptedException {
+        try {
+            CacheSnapshot.restore(new CacheEngine(), file).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause().getCause();
+            Assert.assertTrue(cause instanceof IOException);
+            Assert.assertTrue(cause.getMessage(), cause.getMessage().contains(message) && cause.getMessage().contains(file.getPath()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.CacheEngine;
+import net.bndy.lib.cache.CacheOptions;
+import net.bndy.lib.cache.CacheStats;
+import net.bndy.lib.cache.RemovalCause;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class CacheStatsTest {
+
+    @Test public void counters() throws InterruptedException {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumSize(10);
+        options.setRecordStats(true);
+        CacheEngine cache = new CacheEngine(options);
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c", key -> "loaded");
+        cache.remove("a");
+        cache.put("ttl", 1, 1);
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, i);
+        }
+        Thread.sleep(5);
+        cache.cleanUp();
+
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(stats.getHitCount(), 1);
+        Assert.assertEquals(stats.getMissCount(), 2);
+        Assert.assertEquals(stats.getLoadSuccessCount(), 1);
+        Assert.assertEquals(stats.getRemovalCount(RemovalCause.REPLACED), 1);
+        Assert.assertEquals(stats.getRemovalCount(RemovalCause.EXPLICIT), 1);
+        Assert.assertTrue(stats.getRemovalCount(RemovalCause.SIZE) > 0);
+        Assert.assertTrue(stats.getSize() <= 10);
+        long loads = 0;
+        for (long count : stats.getLoadLatencyHistogram()) {
+            loads += count;
+        }
+        Assert.assertEquals(loads, 1);
+    }
+
+    @Test public void mbean() throws JMException {
+        CacheOptions options = new CacheOptions();
+        options.setRecordStats(true);
+        CacheEngine cache = new CacheEngine(options);
+        cache.get("missing");
+        ObjectName name = cache.registerMBean("stats-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Assert.assertEquals(server.getAttribute(name, "MissCount"), 1L);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test(timeout = 5000) public void readWithoutEvictionLock() throws Exception {
+        CacheOptions options = new CacheOptions();
+        options.setMaximumWeight(1000);
+        options.setRecordStats(true);
+        CacheEngine cache = new CacheEngine(options);
+        cache.put("a", "value");
+        ObjectName name = cache.registerMBean("stats-lock-test");
+        ReentrantLock evictionLock = (ReentrantLock) ReflectionHelper.getFieldValue(cache, "evictionLock");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            evictionLock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                evictionLock.unlock();
+            }
+        });
+        holder.start();
+        try {
+            locked.await();
+            long weight = cache.getWeightedSize();
+            Assert.assertTrue(weight > 0);
+            Assert.assertEquals(cache.getStats().getWeightedSize(), weight);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(server.getAttribute(name, "WeightedSize"), weight);
+            Assert.assertEquals(server.getAttribute(name, "Size"), 1L);
+        } finally {
+            release.countDown();
+            holder.join();
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package net.bndy.lib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Measures the sequential and parallel filter/convert of {@link CollectionHelper} over growing
+ * sizes, to find the size where parallelism pays off on a machine. Run with
+ * {@code java -Xmx2g -cp ... net.bndy.lib.CollectionHelperBenchmark [parallelism]}.
+ */
+public class CollectionHelperBenchmark {
+
+    private static final int[] SIZES = { 1_000, 10_000, 100_000, 1_000_000, 5_000_000 };
+
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, parallelism));
+        System.out.println("cpus=" + Runtime.getRuntime().availableProcessors() + " pool=" + pool.getParallelism()
+            + " java=" + System.getProperty("java.version"));
+
+        Predicate<Integer> cheapFilter = i -> (i & 3) == 0;
+        Function<Integer, String> costlyConvert = i -> Integer.toHexString(i * 31 + 7).toUpperCase(Locale.ROOT);
+
+        System.out.println("size        filter-seq  filter-par  convert-seq convert-par  (microseconds per call)");
+        for (int size : SIZES) {
+            List<Integer> source = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                source.add(i);
+            }
+            System.out.printf(Locale.ROOT, "%-11d %-11.0f %-11.0f %-11.0f %-11.0f%n", size,
+                measure(() -> CollectionHelper.filter(source, cheapFilter)),
+                measure(() -> CollectionHelper.parallelFilter(source, cheapFilter, pool, 0)),
+                measure(() -> CollectionHelper.convert(source, costlyConvert)),
+                measure(() -> CollectionHelper.parallelConvert(source, costlyConvert, pool, 0)));
+        }
+        pool.shutdown();
+    }
+
+    private static double measure(Supplier<List<?>> call) {
+        // warm up for at least half a second, then report the mean of at least five runs
+        long sink = 0;
+        for (long end = System.nanoTime() + 500_000_000L; System.nanoTime() < end; ) {
+            sink += call.get().size();
+        }
+        int runs = 0;
+        long start = System.nanoTime();
+        while (runs < 5 || System.nanoTime() - start < 1_000_000_000L) {
+            sink += call.get().size();
+            runs++;
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return (System.nanoTime() - start) / 1000.0 / runs;
+    }
+}
@@ -0,0 +1,50 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class CollectionHelperTest {
+
+    @Test public void parallelKeepsOrder() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            source.add(i);
+        }
+        Predicate<Integer> predicate = i -> i % 7 == 3;
+        Function<Integer, String> mapper = i -> "#" + i;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assert.assertEquals(CollectionHelper.parallelFilter(source, predicate, pool, 1000),
+                CollectionHelper.filter(source, predicate));
+            Assert.assertEquals(CollectionHelper.parallelConvert(source, mapper, pool, 1000),
+                CollectionHelper.convert(source, mapper));
+            Assert.assertTrue(CollectionHelper.parallelFilter(new ArrayList<>(), predicate, pool, 0).isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test public void parallelConvertArraysAsList() {
+        String[] values = new String[2000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = String.valueOf(i);
+        }
+        // on Java 8 the toArray of Arrays.asList returns the String[] itself
+        List<String> source = Arrays.asList(values);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Integer> converted = CollectionHelper.parallelConvert(source, Integer::valueOf, pool, 1000);
+            Assert.assertEquals(converted, CollectionHelper.convert(source, Integer::valueOf));
+            Assert.assertEquals(source.get(0), "0");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+public class EnumHelperTest {
+
+    public enum Color { RED, GREEN, BLUE, Blue }
+
+    @Test public void lookup() {
+        Assert.assertEquals(StringHelper.toEnum("green", Color.class), Color.GREEN);
+        Assert.assertEquals(EnumHelper.convert("blue", Color.class), Color.BLUE);
+        Assert.assertNull(StringHelper.toEnum("purple", Color.class));
+        Assert.assertNull(StringHelper.toEnum(null, Color.class));
+        Assert.assertEquals(EnumLookup.of(Color.class).valueOf("Blue"), Color.Blue);
+        Assert.assertEquals(EnumLookup.of(Color.class).get(1), Color.GREEN);
+        Assert.assertSame(EnumLookup.of(Color.class).toMap(), EnumLookup.of(Color.class).toMap());
+        Assert.assertEquals(EnumHelper.toMap(Color.class), EnumLookup.of(Color.class).toMap());
+        Assert.assertEquals(EnumHelper.toMap(Color.class).get(2), "BLUE");
+        // a copy the caller owns, as before the cache
+        Map<Integer, String> map = EnumHelper.toMap(Color.class);
+        map.put(9, "EXTRA");
+        Assert.assertNull(EnumHelper.toMap(Color.class).get(9));
+    }
+
+    @Test public void bulk() {
+        Assert.assertEquals(EnumHelper.toEnumSet(" red,,Blue , ", ',', Color.class), EnumSet.of(Color.RED, Color.BLUE));
+        Assert.assertEquals(EnumHelper.toMask("green|red", '|', Color.class), 3L);
+        Assert.assertEquals(EnumLookup.of(Color.class).fromMask(6L), EnumSet.of(Color.GREEN, Color.BLUE));
+        try {
+            EnumHelper.toEnumSet("red,pink", ',', Color.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().endsWith(".pink"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package net.bndy.lib;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link FieldAccessor} with plain {@link Field} access and with
+ * {@link ReflectionHelper#setFieldValue(Object, String, Object)}, on a {@code long} and a
+ * {@code String} field. Run with
+ * {@code java -cp ... org.openjdk.jmh.Main FieldAccessorBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessorBenchmark {
+
+    public static class Row {
+        private long id;
+        private String name;
+    }
+
+    private final Row row = new Row();
+    private long counter;
+    private Field idField;
+    private Field nameField;
+    private FieldAccessor idAccessor;
+    private FieldAccessor nameAccessor;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        idField = Row.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        nameField = Row.class.getDeclaredField("name");
+        nameField.setAccessible(true);
+        idAccessor = FieldAccessor.of(Row.class, "id");
+        nameAccessor = FieldAccessor.of(Row.class, "name");
+    }
+
+    @Benchmark
+    public void fieldSetLong() throws IllegalAccessException {
+        idField.setLong(row, counter++);
+    }
+
+    @Benchmark
+    public void accessorSetLong() {
+        idAccessor.setLong(row, counter++);
+    }
+
+    @Benchmark
+    public long fieldGetLong() throws IllegalAccessException {
+        return idField.getLong(row);
+    }
+
+    @Benchmark
+    public long accessorGetLong() {
+        return idAccessor.getLong(row);
+    }
+
+    @Benchmark
+    public void fieldSet() throws IllegalAccessException {
+        nameField.set(row, "name");
+    }
+
+    @Benchmark
+    public void accessorSet() {
+        nameAccessor.set(row, "name");
+    }
+
+    @Benchmark
+    public void setFieldValue() throws IllegalAccessException {
+        ReflectionHelper.setFieldValue(row, "name", "name");
+    }
+
+    @Benchmark
+    public void fieldLookupAndSet() throws IllegalAccessException, NoSuchFieldException {
+        // what setFieldValue used to cost, without the list rebuild of getAllFields
+        Field field = Row.class.getDeclaredField("name");
+        field.setAccessible(true);
+        field.set(row, "name");
+    }
+}
@@ -0,0 +1,74 @@
+package net.bndy.lib;
+
+import net.bndy.lib.cache.LongCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LongCacheTest {
+
+    @Test public void putGetRemove() {
+        LongCache cache = new LongCache();
+        for (long i = 0; i < 10000; i++) {
+            cache.put(i, i * 2);
+        }
+        Assert.assertEquals(cache.size(), 10000);
+        Assert.assertEquals(cache.getLong(4242), 8484);
+        Assert.assertEquals(cache.getLong(-1), LongCache.NO_VALUE);
+        Assert.assertEquals(cache.getLong(-1, 7), 7);
+        for (long i = 0; i < 10000; i += 2) {
+            Assert.assertTrue(cache.remove(i));
+        }
+        Assert.assertEquals(cache.size(), 5000);
+        for (long i = 0; i < 10000; i++) {
+            Assert.assertEquals(cache.containsKey(i), i % 2 == 1);
+        }
+    }
+
+    @Test public void concurrentIncrement() throws InterruptedException {
+        LongCache cache = new LongCache();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    cache.increment(i % 100);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long key = 0; key < 100; key++) {
+            Assert.assertEquals(cache.getLong(key), 800);
+        }
+    }
+
+    @Test public void expiration() throws InterruptedException {
+        LongCache cache = new LongCache(16, 50);
+        cache.addAndGet(1, 5);
+        Assert.assertEquals(cache.getLong(1), 5);
+        Thread.sleep(60);
+        Assert.assertFalse(cache.containsKey(1));
+        Assert.assertEquals(cache.addAndGet(1, 5), 5);
+    }
+
+    @Test public void expirationChurn() throws InterruptedException {
+        LongCache cache = new LongCache(16, 20);
+        long key = 0;
+        for (int round = 0; round < 30; round++) {
+            Thread.sleep(25);
+            for (int i = 0; i < 1000; i++) {
+                cache.put(key++, i);
+            }
+        }
+        // at most 2000 live keys at a time, the 30000 written ones must not grow the tables
+        Assert.assertTrue("capacity " + cache.capacity(), cache.capacity() <= 16 * 1024);
+        Assert.assertEquals(cache.getLong(key - 1), 999);
+        cache.clear();
+        Assert.assertEquals(cache.capacity(), 16 * 4);
+    }
+}
@@ -0,0 +1,93 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.bndy.lib.primitive.IntIntMap;
+import net.bndy.lib.primitive.IntList;
+import net.bndy.lib.primitive.LongLongMap;
+import net.bndy.lib.primitive.LongList;
+import net.bndy.lib.primitive.LongSet;
+import net.bndy.lib.wrapper.IntListWrapper;
+import net.bndy.lib.wrapper.IntegersWrapper;
+import net.bndy.lib.wrapper.LongListWrapper;
+import net.bndy.lib.wrapper.LongsWrapper;
+
+public class PrimitiveCollectionsTest {
+
+    @Test public void list() {
+        LongList list = LongList.of(3, 1, 2);
+        list.addLong(Long.MAX_VALUE);
+        list.removeLongAt(0);
+        Assert.assertEquals(list, Arrays.asList(1L, 2L, Long.MAX_VALUE));
+        Assert.assertEquals(Arrays.asList(1L, 2L, Long.MAX_VALUE).hashCode(), list.hashCode());
+        Assert.assertEquals(list.indexOf(2L), 1);
+        Assert.assertFalse(list.contains(2));
+        list.add(0, 5L);
+        list.sort();
+        Assert.assertArrayEquals(list.toLongArray(), new long[] { 1, 2, 5, Long.MAX_VALUE });
+    }
+
+    @Test public void setAndMap() {
+        LongSet set = new LongSet();
+        for (long i = -1000; i < 1000; i++) {
+            set.addLong(i * 31);
+        }
+        for (long i = -1000; i < 1000; i += 2) {
+            Assert.assertTrue(set.removeLong(i * 31));
+        }
+        Assert.assertEquals(set.size(), 1000);
+        Assert.assertTrue(set.containsLong(-999 * 31));
+        Assert.assertFalse(set.containsLong(0));
+        Assert.assertEquals(set.stream().count(), 1000);
+
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100; i++) {
+            map.addTo(i % 10, 1);
+        }
+        map.remove(3);
+        Assert.assertEquals(map.size(), 9);
+        Assert.assertEquals(map.get(0), 10);
+        Assert.assertEquals(map.getOrDefault(3, -1), -1);
+    }
+
+    @Test public void splitToLong() {
+        List<Long> values = StringHelper.splitToLong(" 1, -2 ,,+3 ,9223372036854775807,", ",");
+        Assert.assertEquals(values, Arrays.asList(1L, -2L, 3L, Long.MAX_VALUE));
+        Assert.assertEquals(values.getClass(), ArrayList.class);
+        Assert.assertEquals(StringHelper.splitToLong("1|2", "\\|"), Arrays.asList(1L, 2L));
+        Assert.assertEquals(StringHelper.splitToInt("-2147483648;7", ";", new IntList()), Arrays.asList(Integer.MIN_VALUE, 7));
+        for (String invalid : new String[] { "9223372036854775808", "-", "1a", "1 2" }) {
+            try {
+                StringHelper.splitToLong(invalid, ",");
+                Assert.fail(invalid);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test public void json() {
+        LongListWrapper wrapper = JsonHelper.parse("{\"values\":[1,\"2\",-3]}", LongListWrapper.class);
+        Assert.assertEquals(wrapper.getValues(), LongList.of(1, 2, -3));
+        Assert.assertEquals(JsonHelper.toString(wrapper), "{\"values\":[1,2,-3]}");
+        Assert.assertEquals(JsonHelper.parse("{\"values\":[4]}", IntListWrapper.class).getValues(), IntList.of(4));
+
+        // the boxed wrappers keep accepting nulls
+        LongsWrapper boxed = JsonHelper.parse("{\"values\":[1,null]}", LongsWrapper.class);
+        Assert.assertEquals(boxed.getValues(), Arrays.asList(1L, null));
+        boxed.getValues().add(null);
+        Assert.assertEquals(JsonHelper.parse("{\"values\":[null]}", IntegersWrapper.class).getValues(), Arrays.asList((Integer) null));
+
+        LongLongMap map = new LongLongMap();
+        map.put(0, 1);
+        map.put(-5, 7);
+        LongLongMap parsed = JsonHelper.parse(JsonHelper.toString(map), LongLongMap.class);
+        Assert.assertEquals(parsed, map);
+        Assert.assertEquals(JsonHelper.parse("[4,4,0]", LongSet.class), LongSet.of(0, 4));
+    }
+}
@@ -0,0 +1,65 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class QueryTest {
+
+    @Test public void pipeline() {
+        List<Integer> source = Arrays.asList(5, 3, 8, 3, 1, 9, 8, 2);
+        Assert.assertEquals(Query.from(source).where(i -> i > 2).distinct().select(i -> "#" + i).toList(),
+            Arrays.asList("#5", "#3", "#8", "#9"));
+        Assert.assertEquals(Query.from(source).skip(2).take(3).toList(), Arrays.asList(8, 3, 1));
+        Assert.assertEquals(Query.from(source).take(0).count(), 0);
+        Assert.assertEquals(Query.from(source).first(i -> i > 5), Integer.valueOf(8));
+        Assert.assertNull(Query.from(source).first(i -> i > 100));
+        Assert.assertTrue(Query.from(source).any(i -> i == 1));
+        Assert.assertFalse(Query.from((Iterable<Integer>) null).any());
+        Assert.assertEquals(Query.from("a", "b", "c").skip(1).toList(), Arrays.asList("b", "c"));
+        Assert.assertFalse(Query.from((String[]) null).any());
+
+        Map<Boolean, List<Integer>> groups = Query.from(source).groupBy(i -> i % 2 == 0);
+        Assert.assertEquals(groups.get(true), Arrays.asList(8, 8, 2));
+        Assert.assertEquals(new ArrayList<>(groups.keySet()), Arrays.asList(false, true));
+    }
+
+    @Test public void shortCircuit() {
+        List<Integer> visited = new ArrayList<>();
+        Iterable<Integer> source = () -> new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                visited.add(next);
+                return next++;
+            }
+        };
+        Assert.assertEquals(Query.from(source).where(i -> i % 3 == 2).select(i -> i * 10).take(2).toList(),
+            Arrays.asList(20, 50));
+        Assert.assertEquals(visited.size(), 6);
+
+        visited.clear();
+        List<Integer> taken = new ArrayList<>();
+        Query.from(source).take(3).forEach(taken::add);
+        Assert.assertEquals(taken, Arrays.asList(0, 1, 2));
+        Assert.assertEquals(visited.size(), 3);
+
+        visited.clear();
+        Assert.assertEquals(CollectionHelper.first(Arrays.asList(1, 2, 3, 4), i -> {
+            visited.add(i);
+            return i == 2;
+        }), Integer.valueOf(2));
+        Assert.assertEquals(visited, Arrays.asList(1, 2));
+    }
+}
@@ -3,6 +3,8 @@ package net.bndy.lib;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+
 public class ReflectionHelperTest {
 
     @Test public void newInstance() throws InstantiationException, IllegalAccessException, ClassNotFoundException {
@@ -19,4 +21,70 @@ public class ReflectionHelperTest {
         Assert.assertEquals(tm.getId().longValue(), 12l);
 
     }
+
+    public static class ChildModel extends TestModel {
+        private String extra;
+    }
+
+    @Test public void metadata() {
+        ClassMetadata metadata = ClassMetadata.of(ChildModel.class);
+        Assert.assertSame(ClassMetadata.of(ChildModel.class), metadata);
+        Assert.assertEquals(ReflectionHelper.getField("id", ChildModel.class).getDeclaringClass(), TestModel.class);
+        Assert.assertNotNull(ReflectionHelper.getField("extra", ChildModel.class));
+        Assert.assertNull(ReflectionHelper.getField("missing", ChildModel.class));
+        Assert.assertEquals(ReflectionHelper.getMethod("setName", ChildModel.class).getDeclaringClass(), TestModel.class);
+        Assert.assertEquals(metadata.getFieldAnnotation("id", TestAnnotation.class).name(), "field");
+        Assert.assertEquals(AnnotationHelper.getFieldAnnotation(TestAnnotation.class, ChildModel.class, "id").name(), "field");
+
+        // the members are cached, and only the accessors make their own copy accessible
+        Field extra = metadata.getField("extra");
+        Assert.assertSame(metadata.getField("extra"), extra);
+        Assert.assertSame(metadata.getMethod("clone"), metadata.getMethods("clone").get(0));
+        Assert.assertTrue(metadata.getFields().contains(extra));
+        Assert.assertTrue(metadata.getMethods("missing").isEmpty());
+        try {
+            metadata.getFields().clear();
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Assert.assertFalse(metadata.getMethod("clone").isAccessible());
+        Assert.assertEquals(metadata.getMethod("clone").getDeclaringClass(), Object.class);
+        FieldAccessor.of(ChildModel.class, "extra").set(new ChildModel(), "x");
+        Assert.assertFalse(FieldAccessor.of(ChildModel.class, "extra").getField().isAccessible());
+        Assert.assertFalse(metadata.getField("extra").isAccessible());
+    }
+
+    public static class Counter {
+        private static int instances;
+        private long hits;
+        private int errors;
+        private boolean enabled;
+        private String label;
+    }
+
+    @Test public void fieldAccessor() throws IllegalAccessException {
+        Counter counter = new Counter();
+        FieldAccessor hits = FieldAccessor.of(Counter.class, "hits");
+        Assert.assertSame(FieldAccessor.of(Counter.class, "hits"), hits);
+        hits.setLong(counter, 5);
+        Assert.assertEquals(hits.getLong(counter), 5L);
+        Assert.assertEquals(hits.get(counter), 5L);
+        FieldAccessor.of(Counter.class, "errors").setInt(counter, 2);
+        Assert.assertEquals(FieldAccessor.of(Counter.class, "errors").getLong(counter), 2L);
+        FieldAccessor.of(Counter.class, "enabled").setBoolean(counter, true);
+        Assert.assertTrue(counter.enabled);
+        FieldAccessor.of(Counter.class, "instances").setInt(null, 3);
+        Assert.assertEquals(Counter.instances, 3);
+        Assert.assertNull(FieldAccessor.of(Counter.class, "missing"));
+
+        ReflectionHelper.setFieldValue(counter, "label", "a");
+        Assert.assertEquals(ReflectionHelper.getFieldValue(counter, "label"), "a");
+        try {
+            FieldAccessor.of(Counter.class, "label").set(counter, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(counter.label, "a");
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package net.bndy.lib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class TypeResolverTest {
+
+    static abstract class Service<E, K> {
+        List<E>[] pages;
+        Map<K, ? extends E> index;
+    }
+
+    static abstract class CachedService<E> extends Service<E, Long> implements Function<E, List<E>> {
+    }
+
+    static class UserService extends CachedService<Map<String, List<Integer>>> {
+        @Override
+        public List<Map<String, List<Integer>>> apply(Map<String, List<Integer>> e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    static class RawService extends Service {
+    }
+
+    static class Strings extends ArrayList<String> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @Test public void typeArguments() throws Exception {
+        TypeResolver resolver = TypeResolver.of(UserService.class);
+        Type entity = resolver.getTypeArgument(Service.class, 0);
+        Assert.assertEquals(entity, ((ParameterizedType) UserService.class.getGenericSuperclass()).getActualTypeArguments()[0]);
+        Assert.assertEquals(entity.getTypeName(), "java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>");
+        Assert.assertEquals(resolver.getRawTypeArgument(Service.class, 0), Map.class);
+        Assert.assertEquals(resolver.getRawTypeArgument(Service.class, 1), Long.class);
+        Assert.assertEquals(resolver.getRawTypeArgument(Function.class, 1), List.class);
+        Assert.assertEquals(resolver.getTypeArgument(Function.class, 1).getTypeName(),
+            "java.util.List<java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>>");
+        Assert.assertEquals(resolver.getSupertype(Service.class).getTypeName(),
+            "net.bndy.lib.TypeResolverTest$Service<java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>, java.lang.Long>");
+        Assert.assertTrue(TypeResolver.of(UserService.class) == resolver);
+        Assert.assertTrue(resolver.isSubtypeOf(Object.class));
+        Assert.assertNull(resolver.getTypeArguments(Runnable.class));
+        Assert.assertEquals(resolver.getTypeArguments(Object.class).length, 0);
+
+        // inherited field types
+        Type pages = resolver.resolve(Service.class.getDeclaredField("pages").getGenericType());
+        Assert.assertEquals(pages.getTypeName(), "java.util.List<java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>>[]");
+        Assert.assertEquals(TypeResolver.getRawType(pages), List[].class);
+        Type index = resolver.resolve(Service.class.getDeclaredField("index").getGenericType());
+        Assert.assertEquals(resolver.getTypeArgument(Function.class, 1), UserService.class.getMethod("apply", Map.class).getGenericReturnType());
+        Assert.assertEquals(index.getTypeName(),
+            "java.util.Map<java.lang.Long, ? extends java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>>");
+
+        // unbound and raw
+        Assert.assertTrue(TypeResolver.of(CachedService.class).getTypeArgument(Service.class, 0) instanceof TypeVariable);
+        Assert.assertEquals(TypeResolver.of(CachedService.class).getRawTypeArgument(Service.class, 0), Object.class);
+        Assert.assertEquals(TypeResolver.of(RawService.class).getRawTypeArgument(Service.class, 1), Object.class);
+        Assert.assertEquals(TypeResolver.of(Strings.class).getRawTypeArgument(Iterable.class, 0), String.class);
+        try {
+            resolver.getTypeArgument(Runnable.class, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("Runnable"));
+        }
+    }
+
+    @Test public void genericType() throws Exception {
+        GenericType<List<String>> listType = new GenericType<List<String>>() { };
+        Assert.assertEquals(listType.getClazz(), List.class);
+        Assert.assertEquals(listType.getType().getTypeName(), "java.util.List<java.lang.String>");
+        Assert.assertEquals(ReflectionHelper.getClazz(), Object.class);
+
+        Assert.assertEquals(ReflectionHelper.getClass(listType.getType()), List.class);
+        Assert.assertEquals(ReflectionHelper.getClass(String.class), String.class);
+        Assert.assertEquals(ReflectionHelper.getClass(int.class), int.class);
+        Assert.assertNull(ReflectionHelper.getClass(null));
+        Assert.assertEquals(ReflectionHelper.getParameterizedTypes(new Strings())[0], String.class);
+        Assert.assertNull(ReflectionHelper.getParameterizedTypes(new RawService()));
+    }
+}
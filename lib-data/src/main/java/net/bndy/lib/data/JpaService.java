@@ -4,7 +4,6 @@
  */
 package net.bndy.lib.data;
 
-import java.lang.reflect.ParameterizedType;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +13,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import net.bndy.lib.TypeResolver;
+
 /**
  * @author Bendy Zhang
  * @version 1.0
@@ -27,8 +28,7 @@ public abstract class JpaService<TEntity, TKey> {
     
     @SuppressWarnings("unchecked")
     public JpaService() {
-        this.entityClass = (Class<TEntity>) ((ParameterizedType) getClass()
-            .getGenericSuperclass()).getActualTypeArguments()[0];
+        this.entityClass = (Class<TEntity>) TypeResolver.of(getClass()).getRawTypeArgument(JpaService.class, 0);
     }
     
     public List<TEntity> getAll() {
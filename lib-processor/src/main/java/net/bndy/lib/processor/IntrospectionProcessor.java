@@ -0,0 +1,402 @@
+package net.bndy.lib.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the {@code BeanIntrospection} of each class annotated with
+ * {@code net.bndy.lib.introspect.Introspected}: its property names and types, the code reading
+ * and writing each visible field directly, the code creating instances, and the member values of
+ * the runtime annotations of its fields.
+ * <p>
+ * Whatever the generated code cannot reach, such as a private field or an annotation with a
+ * nested annotation value, is marked so that the runtime falls back on reflection for it. Getters
+ * and setters are never called instead of a field, since the reflective fallback reads and writes
+ * the fields too, and a property must behave the same whichever way it is reached. The processor
+ * only reads the source model, so it does not depend on {@code lib-common}.
+ */
+public class IntrospectionProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "net.bndy.lib.introspect.Introspected";
+    static final String SUFFIX = "__Introspection";
+
+    private static final String BASE_CLASS = "net.bndy.lib.introspect.BeanIntrospection";
+
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (check(element)) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean check(Element element) {
+        String problem = null;
+        if (element.getKind() != ElementKind.CLASS) {
+            problem = "@Introspected only applies to classes";
+        } else if (element.getModifiers().contains(Modifier.PRIVATE)) {
+            problem = "@Introspected class must not be private";
+        } else if (((TypeElement) element).getNestingKind() != NestingKind.TOP_LEVEL
+            && !element.getModifiers().contains(Modifier.STATIC)) {
+            problem = "@Introspected nested class must be static";
+        }
+        if (problem != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, problem, element);
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        PackageElement pkg = elements.getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String typeName = types.erasure(type.asType()).toString();
+
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (VariableElement field : fieldsOf(type)) {
+            if (names.add(field.getSimpleName().toString())) {
+                properties.add(new Property(type, field, packageName));
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n * Generated by ").append(getClass().getName()).append(" from {@link ").append(typeName)
+            .append("}, do not edit.\n */\n");
+        out.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+        out.append("public final class ").append(className).append(" extends ").append(BASE_CLASS)
+            .append('<').append(typeName).append("> {\n\n");
+
+        // constructor
+        out.append("    public ").append(className).append("() {\n");
+        out.append("        super(").append(typeName).append(".class,\n");
+        out.append("            new String[] {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append(i > 0 ? ", " : " ").append(elements.getConstantExpression(properties.get(i).name));
+        }
+        out.append(properties.isEmpty() ? "},\n" : " },\n");
+        out.append("            new Class<?>[] {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append(i > 0 ? ", " : " ").append(properties.get(i).classLiteral());
+        }
+        out.append(properties.isEmpty() ? "},\n" : " },\n");
+        out.append("            new int[] {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append(i > 0 ? ", " : " ").append(properties.get(i).access());
+        }
+        out.append(properties.isEmpty() ? "},\n" : " },\n");
+        out.append("            ").append(isInstantiable(type, packageName)).append(");\n");
+        for (int i = 0; i < properties.size(); i++) {
+            for (String annotation : annotationsOf(properties.get(i).field, i, packageName)) {
+                out.append("        ").append(annotation).append(";\n");
+            }
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    protected ").append(typeName).append(" instantiate() {\n");
+        if (isInstantiable(type, packageName)) {
+            out.append("        return new ").append(typeName).append("();\n");
+        } else {
+            out.append("        throw new UnsupportedOperationException();\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    protected Object read(").append(typeName).append(" bean, int index) {\n");
+        out.append("        switch (index) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            String read = properties.get(i).read;
+            if (read != null) {
+                out.append("            case ").append(i).append(":\n");
+                out.append("                return ").append(read).append(";\n");
+            }
+        }
+        out.append("            default:\n");
+        out.append("                throw new IllegalArgumentException(\"Not readable: \" + index);\n");
+        out.append("        }\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    protected void write(").append(typeName).append(" bean, int index, Object value) {\n");
+        out.append("        switch (index) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            String write = properties.get(i).write;
+            if (write != null) {
+                out.append("            case ").append(i).append(":\n");
+                out.append("                ").append(write).append(";\n");
+                out.append("                return;\n");
+            }
+        }
+        out.append("            default:\n");
+        out.append("                throw new IllegalArgumentException(\"Not writable: \" + index);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(binaryName + SUFFIX, type).openWriter()) {
+            writer.write(out.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Can not generate " + binaryName + SUFFIX + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * Gets the instance fields in the order of {@code ClassMetadata}: the public ones of the
+     * class and of its superclasses, then all of them.
+     */
+    private Set<VariableElement> fieldsOf(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement t = type; t != null; t = superclassOf(t)) {
+            hierarchy.add(t);
+        }
+        Set<VariableElement> result = new LinkedHashSet<>();
+        for (boolean publicOnly : new boolean[] { true, false }) {
+            for (TypeElement t : hierarchy) {
+                for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                    if (field.getModifiers().contains(Modifier.STATIC)) {
+                        continue;
+                    }
+                    if (!publicOnly || field.getModifiers().contains(Modifier.PUBLIC)) {
+                        result.add(field);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private boolean isInstantiable(TypeElement type, String packageName) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return isVisible(constructor, type, packageName);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the statements recording the runtime annotations of the field of a property.
+     */
+    private List<String> annotationsOf(VariableElement field, int index, String packageName) {
+        List<String> result = new ArrayList<>();
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            if (retention == null || retention.value() != RetentionPolicy.RUNTIME) {
+                continue;
+            }
+            StringBuilder statement = new StringBuilder();
+            boolean constant = isNameable(annotationType.asType(), packageName);
+            if (constant) {
+                statement.append("annotate(").append(index).append(", ").append(annotationType.getQualifiedName()).append(".class");
+                Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements.getElementValuesWithDefaults(mirror);
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                    String value = expressionOf(entry.getValue(), entry.getKey().getReturnType(), packageName);
+                    if (value == null) {
+                        constant = false;
+                        break;
+                    }
+                    statement.append(", ").append(elements.getConstantExpression(entry.getKey().getSimpleName().toString()))
+                        .append(", ").append(value);
+                }
+                statement.append(')');
+            }
+            result.add(constant ? statement.toString()
+                : "annotateReflectively(" + index + ", " + elements.getConstantExpression(elements.getBinaryName(annotationType).toString()) + ")");
+        }
+        return result;
+    }
+
+    /**
+     * Gets the source of an annotation member value, or {@code null} if it is not a constant
+     * which the generated class can write, e.g. a nested annotation.
+     */
+    private String expressionOf(AnnotationValue annotationValue, TypeMirror type, String packageName) {
+        Object value = annotationValue.getValue();
+        if (value instanceof VariableElement) {
+            VariableElement constant = (VariableElement) value;
+            TypeMirror enumType = constant.getEnclosingElement().asType();
+            return isNameable(enumType, packageName)
+                ? types.erasure(enumType) + "." + constant.getSimpleName() : null;
+        }
+        if (value instanceof TypeMirror) {
+            TypeMirror erased = types.erasure((TypeMirror) value);
+            return isNameable(erased, packageName) ? erased + ".class" : null;
+        }
+        if (value instanceof AnnotationMirror) {
+            return null;
+        }
+        if (value instanceof List) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            if (!isNameable(componentType, packageName)) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder("new ").append(types.erasure(componentType)).append("[] {");
+            boolean first = true;
+            for (Object element : (List<?>) value) {
+                String expression = expressionOf((AnnotationValue) element, componentType, packageName);
+                if (expression == null) {
+                    return null;
+                }
+                sb.append(first ? " " : ", ").append(expression);
+                first = false;
+            }
+            return sb.append(first ? "}" : " }").toString();
+        }
+        return elements.getConstantExpression(value);
+    }
+
+    /**
+     * Checks whether the generated class, in the package of the model class, can name a type.
+     */
+    private boolean isNameable(TypeMirror type, String packageName) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isNameable(((ArrayType) type).getComponentType(), packageName);
+            case DECLARED:
+                for (Element e = ((DeclaredType) type).asElement(); e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+                    if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                        return false;
+                    }
+                    if (!e.getModifiers().contains(Modifier.PUBLIC)
+                        && !elements.getPackageOf(e).getQualifiedName().contentEquals(packageName)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    /**
+     * Checks whether the generated class, in the package of the model class, can access a member
+     * of the model class.
+     */
+    private boolean isVisible(Element member, TypeElement type, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE)
+            && elements.getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+
+    /**
+     * A property with its access code.
+     */
+    private final class Property {
+        final VariableElement field;
+        final String name;
+        final TypeMirror type;
+        final String read;
+        final String write;
+
+        Property(TypeElement owner, VariableElement field, String packageName) {
+            this.field = field;
+            this.name = field.getSimpleName().toString();
+            // the type as seen from the model class, e.g. String for a field T of Base<T>
+            this.type = types.erasure(types.asMemberOf((DeclaredType) owner.asType(), field));
+
+            String read = null;
+            String write = null;
+            if (isNameable(type, packageName) && isVisible(field, owner, packageName)) {
+                read = "bean." + name;
+                if (!field.getModifiers().contains(Modifier.FINAL)) {
+                    write = "bean." + name + " = (" + castType() + ") value";
+                }
+            }
+            this.read = read;
+            this.write = write;
+        }
+
+        String classLiteral() {
+            return type + ".class";
+        }
+
+        String access() {
+            if (read != null && write != null) {
+                return "READ | WRITE";
+            }
+            return read != null ? "READ" : write != null ? "WRITE" : "0";
+        }
+
+        /**
+         * Gets the type to cast an {@code Object} to, the wrapper of a primitive.
+         */
+        private String castType() {
+            return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString()
+                : type.toString();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package net.bndy.lib.processor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import net.bndy.lib.AnnotationHelper;
+import net.bndy.lib.BeanMapper;
+import net.bndy.lib.ReflectionHelper;
+import net.bndy.lib.introspect.BeanIntrospection;
+
+public class IntrospectionProcessorTest {
+
+    private static final String COLUMN = "package sample;\n"
+        + "import java.lang.annotation.*;\n"
+        + "@Retention(RetentionPolicy.RUNTIME)\n"
+        + "public @interface Column {\n"
+        + "    String name();\n"
+        + "    int length() default 255;\n"
+        + "    String[] aliases() default {};\n"
+        + "    ElementType kind() default ElementType.FIELD;\n"
+        + "}\n";
+
+    private static final String NESTED = "package sample;\n"
+        + "import java.lang.annotation.*;\n"
+        + "@Retention(RetentionPolicy.RUNTIME)\n"
+        + "public @interface Nested {\n"
+        + "    Column value();\n"
+        + "}\n";
+
+    private static final String BASE = "package sample;\n"
+        + "public class Base<T> {\n"
+        + "    protected T ref;\n"
+        + "}\n";
+
+    private static final String USER = "package sample;\n"
+        + "@net.bndy.lib.introspect.Introspected\n"
+        + "public class User extends Base<String> {\n"
+        + "    @Column(name = \"user_id\", aliases = { \"id\", \"#key\" })\n"
+        + "    long id;\n"
+        + "    private String name;\n"
+        + "    private int hidden;\n"
+        + "    @Nested(@Column(name = \"x\"))\n"
+        + "    public boolean active;\n"
+        + "    public final String code = \"c\";\n"
+        + "    public String getName() { return name; }\n"
+        + "    public void setName(String name) { this.name = \"set:\" + name; }\n"
+        + "    public int hidden() { return hidden; }\n"
+        + "}\n";
+
+    @Test public void generate() throws Exception {
+        Path dir = Files.createTempDirectory("introspection");
+        ClassLoader loader = compile(dir, COLUMN, NESTED, BASE, USER);
+        Class<?> userClass = loader.loadClass("sample.User");
+        Assert.assertTrue(new File(dir.toFile(), "sample/User__Introspection.java").exists());
+
+        BeanIntrospection<?> introspection = BeanIntrospection.of(userClass);
+        Assert.assertNotNull(introspection);
+        Assert.assertEquals(introspection.getPropertyNames(), Arrays.asList("active", "code", "id", "name", "hidden", "ref"));
+        Assert.assertEquals(introspection.getPropertyType(introspection.indexOf("ref")), String.class);
+        Assert.assertFalse(introspection.isWritable(introspection.indexOf("hidden")));
+        // a private field is left to reflection, even with a getter and a setter
+        Assert.assertFalse(introspection.isReadable(introspection.indexOf("name")));
+        Assert.assertTrue(introspection.isWritable(introspection.indexOf("id")));
+        Assert.assertFalse(introspection.isWritable(introspection.indexOf("code")));
+        Assert.assertTrue(introspection.isReadable(introspection.indexOf("code")));
+
+        Map<String, Object> source = new HashMap<>();
+        source.put("id", 5);
+        source.put("name", "bob");
+        source.put("hidden", 3);
+        source.put("active", "true");
+        source.put("ref", "r");
+        Object user = BeanMapper.of(userClass).map((Map) source);
+        Assert.assertEquals(ReflectionHelper.getFieldValue(user, "id"), 5L);
+        Assert.assertEquals(ReflectionHelper.getFieldValue(user, "name"), "bob");
+        Assert.assertEquals(userClass.getMethod("hidden").invoke(user), 3);
+        Assert.assertEquals(ReflectionHelper.getFieldValue(user, "active"), true);
+        Assert.assertEquals(ReflectionHelper.getFieldValue(user, "ref"), "r");
+
+        Class<? extends Annotation> columnClass = loader.loadClass("sample.Column").asSubclass(Annotation.class);
+        Annotation column = AnnotationHelper.getFieldAnnotation(columnClass, userClass, "id");
+        Annotation reflected = userClass.getDeclaredField("id").getAnnotation(columnClass);
+        Assert.assertEquals(member(column, "name"), "user_id");
+        Assert.assertEquals(member(column, "length"), 255);
+        Assert.assertArrayEquals((String[]) member(column, "aliases"), new String[] { "id", "#key" });
+        Assert.assertTrue(column.equals(reflected));
+        Assert.assertEquals(column.hashCode(), reflected.hashCode());
+        Assert.assertNull(AnnotationHelper.getFieldAnnotation(columnClass, userClass, "name"));
+
+        // a nested annotation value is read by reflection
+        Class<? extends Annotation> nestedClass = loader.loadClass("sample.Nested").asSubclass(Annotation.class);
+        Assert.assertNotNull(AnnotationHelper.getFieldAnnotation(nestedClass, userClass, "active"));
+    }
+
+    private static Object member(Annotation annotation, String name) throws ReflectiveOperationException {
+        Method method = annotation.annotationType().getMethod(name);
+        return method.invoke(annotation);
+    }
+
+    private static ClassLoader compile(Path dir, String... sources) throws IOException {
+        File[] files = new File[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            String name = sources[i].split("(class|@interface) ")[1].split("[ <]")[0];
+            Path file = dir.resolve("sample").resolve(name + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, sources[i].getBytes(StandardCharsets.UTF_8));
+            files[i] = file.toFile();
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                Arrays.asList("-d", dir.toString(), "-s", dir.toString(), "-classpath", System.getProperty("java.class.path")),
+                null, fileManager.getJavaFileObjects(files));
+            task.setProcessors(Arrays.asList(new IntrospectionProcessor()));
+            Assert.assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+        return new URLClassLoader(new URL[] { dir.toUri().toURL() }, IntrospectionProcessorTest.class.getClassLoader());
+    }
+}